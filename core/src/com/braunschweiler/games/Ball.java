@@ -1,8 +1,5 @@
 package com.braunschweiler.games;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 
@@ -18,10 +15,10 @@ public class Ball extends Rectangle {
     private static final float X_VELOC_REDUCTION_FACTOR = 0.8f;
     public static final int INITIAL_BALL_VELOC_Y = -5;
     public static final int MAX_INITIAL_BALL_VELOC_X = 5;
+    private static final String BALL_IMAGE = "ball.png";
 
     private float currentBallXVeloc;
     private float currentBallYVeloc;
-    private Texture ballImage;
 
     /**
      * Prevents the bug of when the ball gets 'caught' inside the paddle. Once the ball has
@@ -29,15 +26,21 @@ public class Ball extends Rectangle {
      * with something else in the game (a brick, the sides of the screen etc).
      */
     private boolean ballAllowedToCollideWithPaddle;
+    /**
+     * Incremented every time the velocity of the ball changes (bounces, paddle collision zones,
+     * re-initialization). Lets the TrajectoryPredictor detect that a cached trajectory is stale,
+     * even if the ball bounced twice and ended up with the same velocity as before.
+     */
+    private int velocityRevision;
     private int viewPortWidth;
     private int viewPortHeight;
+    private Brick[] overlappingBricks;
 
     public Ball(int viewPortWidth, int viewPortHeight){
         this.viewPortWidth = viewPortWidth;
         this.viewPortHeight = viewPortHeight;
         currentBallXVeloc = 0;
         currentBallYVeloc = 0;
-        ballImage = new Texture(Gdx.files.internal("ball.png"));
     }
 
     public void initialize(int brickAreaHeight) {
@@ -49,9 +52,10 @@ public class Ball extends Rectangle {
         currentBallXVeloc = MathUtils.random(1, MAX_INITIAL_BALL_VELOC_X);
         currentBallYVeloc = INITIAL_BALL_VELOC_Y;
         ballAllowedToCollideWithPaddle = true;
+        velocityRevision++;
     }
 
-    public void updatePosition(List<Brick> bricks, List<Paddle> paddles) {
+    public void updatePosition(BrickGrid brickGrid, List<Paddle> paddles) {
         this.x += currentBallXVeloc;
         this.y += currentBallYVeloc;
 
@@ -89,7 +93,12 @@ public class Ball extends Rectangle {
             ballAllowedToCollideWithPaddle = true;
         }
 
-        for(Brick brick : bricks){
+        if (overlappingBricks == null) {
+            overlappingBricks = new Brick[brickGrid.maxBricksOverlapping(this.width, this.height)];
+        }
+        int nrOfOverlappingBricks = brickGrid.findBricksOverlapping(this, overlappingBricks);
+        for(int i = 0; i < nrOfOverlappingBricks; i++){
+            Brick brick = overlappingBricks[i];
             if(brick.collisionWithBall(this)){
                 updateBallVelocityBasedOnCollision(brick);
                 ballAllowedToCollideWithPaddle = true;
@@ -130,6 +139,7 @@ public class Ball extends Rectangle {
             currentBallYVeloc *= -1;
             ballCollisionInfo = BallCollisionInfo.CollidesWithCorner;
         }
+        velocityRevision++;
 
         return ballCollisionInfo;
     }
@@ -144,6 +154,9 @@ public class Ball extends Rectangle {
             currentBallYVeloc *= -1;
             ballCollidedWithEdgeOfScreen = true;
         }
+        if (ballCollidedWithEdgeOfScreen) {
+            velocityRevision++;
+        }
         return ballCollidedWithEdgeOfScreen;
     }
 
@@ -151,8 +164,20 @@ public class Ball extends Rectangle {
         return this.y < -BALL_SIZE;
     }
 
-    public void draw(SpriteBatch batch) {
-        batch.draw(ballImage, this.x, this.y);
+    public float getXVelocity() {
+        return currentBallXVeloc;
+    }
+
+    public float getYVelocity() {
+        return currentBallYVeloc;
+    }
+
+    public int getVelocityRevision() {
+        return velocityRevision;
+    }
+
+    public void draw(RenderQueue renderQueue) {
+        renderQueue.draw(BALL_IMAGE, this.x, this.y, RenderQueue.LAYER_BALLS);
     }
 
     public enum BallCollisionInfo {
@@ -7,14 +7,15 @@ import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.GlyphLayout;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector3;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
-public class Breakout extends ApplicationAdapter implements InputProcessor, Brick.BrickListener, Paddle.PaddleListener {
+public class Breakout extends ApplicationAdapter implements InputProcessor, Brick.BrickListener, BrickDamageResolver.DestructionListener, Paddle.PaddleListener {
     public static final int VIEWPORT_WIDTH = 800;
     public static final int VIEWPORT_HEIGHT = 480;
     public static final int TOTAL_NUMBER_OF_BRICKS = 20;
@@ -22,48 +23,105 @@ public class Breakout extends ApplicationAdapter implements InputProcessor, Bric
     public static final int NUMBER_OF_BRICKS_PER_ROW = TOTAL_NUMBER_OF_BRICKS / NUMBER_OF_BRICK_ROWS;
     public static final int BRICK_AREA_HEIGHT = VIEWPORT_HEIGHT / 2 - 100;
     public static final int CHANCE_OF_ITEM = 10;
+    public static final int CHANCE_OF_REINFORCED_BRICK = 4;
+    public static final int CHANCE_OF_EXPLOSIVE_BRICK = 8;
+    public static final int REINFORCED_BRICK_HIT_POINTS = 3;
+    public static final String TELEMETRY_DIRECTORY = "telemetry";
+    public static final int TELEMETRY_MAX_FILE_SIZE = 256 * 1024;
+    public static final int TELEMETRY_MAX_NR_OF_FILES = 8;
+    public static final int HUD_MARGIN = 5;
+    public static final long RENDER_STATS_INTERVAL_MILLIS = 1000;
 
     private OrthographicCamera camera;
-    private SpriteBatch batch;
-    private SpriteBatch textBatch;
+    private RenderQueue renderQueue;
+    private TextureCache textures;
     private BitmapFont bitmapFont;
     private GlyphLayout textLayout;
+    private StringBuilder hudText;
+    private boolean logRenderStats;
+    private long lastRenderStatsTime;
     private List<Ball> balls;
     private List<Paddle> paddles;
     private List<Brick> bricks;
+    private BrickGrid brickGrid;
+    private BrickDamageResolver brickDamageResolver;
     private Vector3 touchPos;
-    private Brick brickThatWasHit;
 
     private GameState gameState;
-    private Ball newBall;
+    private List<Ball> newBalls;
     private Paddle leftPaddle;
     private Paddle rightPaddle;
     private boolean spawnPaddles;
     private boolean spawnLeftPaddle;
     private boolean spawnRightPaddle;
     private Paddle paddleToBeDestroyed;
+    private TrajectoryPredictor trajectoryPredictor;
+    private File telemetryDirectory;
+    private TelemetryWriter telemetry;
+
+    /**
+     * Writes the telemetry logs to TELEMETRY_DIRECTORY in the local (app private) storage.
+     */
+    public Breakout() {
+        this(null);
+    }
+
+    /**
+     * Writes the telemetry logs to the given directory. Launchers whose local storage is the working
+     * directory (e.g. desktop, where it is the assets folder) should pass a directory outside of it.
+     */
+    public Breakout(File telemetryDirectory) {
+        this.telemetryDirectory = telemetryDirectory;
+    }
+
+    /**
+     * Logs the number of sprites, draw calls and texture switches once per RENDER_STATS_INTERVAL_MILLIS,
+     * at info level. Off by default.
+     */
+    public void setLogRenderStats(boolean logRenderStats) {
+        this.logRenderStats = logRenderStats;
+    }
 
     @Override
     public void create() {
         Gdx.input.setInputProcessor(this);
         camera = new OrthographicCamera();
         camera.setToOrtho(false, VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
-        batch = new SpriteBatch();
-        textBatch = new SpriteBatch();
-        bitmapFont = new BitmapFont();
+        textures = new TextureCache();
+        renderQueue = new RenderQueue(textures);
+        bitmapFont = textures.getFont();
         textLayout = new GlyphLayout();
+        hudText = new StringBuilder();
 
         touchPos = new Vector3();
 
         balls = new ArrayList<Ball>();
         paddles = new ArrayList<Paddle>();
         bricks = new ArrayList<Brick>();
+        newBalls = new ArrayList<Ball>();
+        brickGrid = new BrickGrid(0, VIEWPORT_HEIGHT, VIEWPORT_WIDTH / NUMBER_OF_BRICKS_PER_ROW, BRICK_AREA_HEIGHT / NUMBER_OF_BRICK_ROWS, NUMBER_OF_BRICKS_PER_ROW, NUMBER_OF_BRICK_ROWS);
+        brickDamageResolver = new BrickDamageResolver(brickGrid, this);
+        trajectoryPredictor = new TrajectoryPredictor(VIEWPORT_WIDTH, VIEWPORT_HEIGHT, Paddle.PADDLE_Y + Paddle.PADDLE_HEIGHT, brickGrid);
+
+        if (telemetryDirectory == null) {
+            telemetryDirectory = Gdx.files.local(TELEMETRY_DIRECTORY).file();
+        }
+        telemetry = new TelemetryWriter(telemetryDirectory, TELEMETRY_MAX_FILE_SIZE, TELEMETRY_MAX_NR_OF_FILES);
+        telemetry.start();
 
         gameState = GameState.Intro;
         initializeGameObjectPositions();
     }
 
+    @Override
+    public void dispose() {
+        telemetry.close();
+        renderQueue.dispose();
+        textures.dispose();
+    }
+
     private void initializeGameObjectPositions() {
+        trajectoryPredictor.clear();
         balls.clear();
         balls.add(new Ball(VIEWPORT_WIDTH, VIEWPORT_HEIGHT));
         for(Ball ball : balls){
@@ -79,20 +137,32 @@ public class Breakout extends ApplicationAdapter implements InputProcessor, Bric
 
     private void initializeBricks() {
         bricks.clear();
-        int brickWidth = VIEWPORT_WIDTH / NUMBER_OF_BRICKS_PER_ROW;
-        int brickHeight = BRICK_AREA_HEIGHT / NUMBER_OF_BRICK_ROWS;
+        brickGrid.clear();
+        brickDamageResolver.clear();
         for (int i = 0; i < NUMBER_OF_BRICK_ROWS; i++) {
             for (int j = 0; j < NUMBER_OF_BRICKS_PER_ROW; j++) {
-                Brick brick = new Brick(generateRandomItem(), this);
-                brick.x = j * brickWidth;
-                brick.y = VIEWPORT_HEIGHT - brickHeight - (i * brickHeight);
-                brick.width = brickWidth;
-                brick.height = brickHeight;
+                Brick brick = generateRandomBrick();
+                brickGrid.add(brick, j, i);
                 bricks.add(brick);
             }
         }
     }
 
+    private Brick generateRandomBrick() {
+        Item item = generateRandomItem();
+        int hitPoints = 1;
+        boolean explosive = false;
+        if(item == null){
+            //Only plain bricks are reinforced or explosive, so each brick type keeps its own look
+            if(MathUtils.random(1, CHANCE_OF_EXPLOSIVE_BRICK) == 1){
+                explosive = true;
+            } else if(MathUtils.random(1, CHANCE_OF_REINFORCED_BRICK) == 1){
+                hitPoints = REINFORCED_BRICK_HIT_POINTS;
+            }
+        }
+        return new Brick(item, hitPoints, explosive, this);
+    }
+
     private Item generateRandomItem() {
         Item item = null;
         int randomNr = MathUtils.random(1, CHANCE_OF_ITEM);
@@ -118,18 +188,22 @@ public class Breakout extends ApplicationAdapter implements InputProcessor, Bric
                 drawIntroScreen();
                 break;
             case Playing:
+                telemetry.recordFrameTime(Gdx.graphics.getDeltaTime());
                 for(Ball ball : balls){
-                    ball.updatePosition(bricks, paddles);
+                    ball.updatePosition(brickGrid, paddles);
                 }
+                removeLostBalls();
                 updatePaddleBasedOnUserInput();
-                destroyHitBrick();
+                resolveBrickDamage();
                 destroyBrokenPaddles();
-                addNewlySpawnedBall();
+                addNewlySpawnedBalls();
                 addNewlySpawnedPaddles();
                 if(gameOver()){
                     gameState = GameState.GameOver;
+                    telemetry.record(TelemetryEvent.SessionEnded, 0);
                 } else if(playerWon()){
                     gameState = GameState.Won;
+                    telemetry.record(TelemetryEvent.SessionEnded, 1);
                 }
                 drawScene();
                 break;
@@ -142,11 +216,39 @@ public class Breakout extends ApplicationAdapter implements InputProcessor, Bric
             default:
                 throw new IllegalStateException("Illegal Game state. Game should be one of: " + GameState.Intro + ", " + GameState.Playing + ", " + GameState.GameOver + ", " + GameState.Won);
         }
+        renderQueue.flush(camera.combined);
+        reportRenderStats();
+    }
+
+    private void reportRenderStats() {
+        if (!logRenderStats) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastRenderStatsTime >= RENDER_STATS_INTERVAL_MILLIS) {
+            lastRenderStatsTime = now;
+            Gdx.app.log("Render", "Sprites: " + renderQueue.getNrOfDrawnCommands()
+                    + ", draw calls: " + renderQueue.getDrawCalls()
+                    + ", texture switches: " + renderQueue.getTextureSwitches());
+        }
+    }
+
+    private void removeLostBalls() {
+        Iterator<Ball> iterator = balls.iterator();
+        while(iterator.hasNext()){
+            Ball ball = iterator.next();
+            if(ball.outOfBounds()){
+                iterator.remove();
+                trajectoryPredictor.remove(ball);
+                telemetry.record(TelemetryEvent.BallLost, balls.size());
+            }
+        }
     }
 
     private void destroyBrokenPaddles() {
         if(paddleToBeDestroyed != null){
             paddles.remove(paddleToBeDestroyed);
+            telemetry.record(TelemetryEvent.PaddleDestroyed, paddleToBeDestroyed.getPaddlePosition().ordinal());
             if(paddleToBeDestroyed.equals(leftPaddle)){
                 leftPaddle = null;
             }
@@ -172,17 +274,27 @@ public class Breakout extends ApplicationAdapter implements InputProcessor, Bric
         }
     }
 
-    private void addNewlySpawnedBall() {
-        if(newBall != null) {
-            balls.add(newBall);
-            newBall = null;
+    private void addNewlySpawnedBalls() {
+        if(!newBalls.isEmpty()) {
+            balls.addAll(newBalls);
+            newBalls.clear();
         }
     }
 
-    private void destroyHitBrick() {
-        if(brickThatWasHit != null) {
-            bricks.remove(brickThatWasHit);
+    private void resolveBrickDamage() {
+        List<Brick> destroyedBricks = brickDamageResolver.resolve();
+        if(destroyedBricks.isEmpty()) {
+            return;
+        }
+        //Remove all destroyed bricks in a single pass, a chain reaction can destroy many at once
+        int nrOfRemainingBricks = 0;
+        for(int i = 0; i < bricks.size(); i++) {
+            Brick brick = bricks.get(i);
+            if(!brick.isDestroyed()) {
+                bricks.set(nrOfRemainingBricks++, brick);
+            }
         }
+        bricks.subList(nrOfRemainingBricks, bricks.size()).clear();
     }
 
     private void drawVictoryScreen() {
@@ -202,51 +314,45 @@ public class Breakout extends ApplicationAdapter implements InputProcessor, Bric
     }
 
     private void drawText(String text) {
-        textBatch.setProjectionMatrix(camera.combined);
-        textBatch.begin();
         textLayout.setText(bitmapFont, text);
         float textWidth = textLayout.width;
         float textHeight = textLayout.height;
         float textX = (VIEWPORT_WIDTH / 2) - (textWidth / 2);
         float textY = (VIEWPORT_HEIGHT / 2) - (textHeight / 2);
-        bitmapFont.draw(textBatch, text, textX, textY);
-        textBatch.end();
+        renderQueue.drawText(bitmapFont, text, textX, textY, RenderQueue.LAYER_TEXT);
     }
 
     private void resetGame() {
         gameState = GameState.Intro;
-        brickThatWasHit = null;
-        newBall = null;
+        newBalls.clear();
         leftPaddle = null;
         rightPaddle = null;
         initializeGameObjectPositions();
     }
 
     private boolean gameOver() {
-        boolean allBallsOutOfBounds = true;
-        for(Ball ball : balls){
-            if(!ball.outOfBounds()){
-                allBallsOutOfBounds = false;
-                break;
-            }
-        }
-        return allBallsOutOfBounds;
+        //Lost balls were already removed by removeLostBalls()
+        return balls.isEmpty();
     }
 
     private void drawScene() {
-        batch.setProjectionMatrix(camera.combined);
-        batch.begin();
         for(Ball ball : balls) {
-            ball.draw(batch);
+            ball.draw(renderQueue);
         }
         for(Paddle paddle : paddles) {
-            paddle.draw(batch);
+            paddle.draw(renderQueue);
         }
 
         for (Brick brick : bricks) {
-            brick.draw(batch);
+            brick.draw(renderQueue);
         }
-        batch.end();
+        drawHud();
+    }
+
+    private void drawHud() {
+        hudText.setLength(0);
+        hudText.append("Bricks: ").append(bricks.size()).append("   Balls: ").append(balls.size());
+        renderQueue.drawText(bitmapFont, hudText, HUD_MARGIN, VIEWPORT_HEIGHT - BRICK_AREA_HEIGHT - HUD_MARGIN, RenderQueue.LAYER_TEXT);
     }
 
     private void updatePaddleBasedOnUserInput() {
@@ -279,6 +385,7 @@ public class Breakout extends ApplicationAdapter implements InputProcessor, Bric
         switch(gameState){
             case Intro:
                 gameState = GameState.Playing;
+                telemetry.record(TelemetryEvent.SessionStarted, 0);
                 break;
             case GameOver:
                 resetGame();
@@ -313,13 +420,21 @@ public class Breakout extends ApplicationAdapter implements InputProcessor, Bric
     }
 
     @Override
-    public void onBallCollidedWithBrick(Brick brick, Item item) {
-        brickThatWasHit = brick;
+    public void onBallCollidedWithBrick(Brick brick) {
+        brickDamageResolver.addDamage(brick, BrickDamageResolver.BALL_DAMAGE);
+        telemetry.record(TelemetryEvent.BrickHit, bricks.size());
+    }
+
+    @Override
+    public void onBrickDestroyed(Brick brick, Item item) {
+        telemetry.record(TelemetryEvent.BrickDestroyed, brick.isExplosive() ? 1 : 0);
         if(item != null){
+            telemetry.record(TelemetryEvent.ItemDropped, item.getType().ordinal());
             switch(item.getType()){
                 case Multiball:
-                    newBall = new Ball(VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+                    Ball newBall = new Ball(VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
                     newBall.initialize(BRICK_AREA_HEIGHT);
+                    newBalls.add(newBall);
                     break;
                 case Multipaddle:
                     if(leftPaddle == null){
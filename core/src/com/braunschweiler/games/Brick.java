@@ -1,34 +1,45 @@
 package com.braunschweiler.games;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Rectangle;
 
 /**
  * Created by chrisbraunschweiler1 on 18/07/16.
  */
 public class Brick extends Rectangle {
+    private static final float EXPLOSIVE_TINT = Color.toFloatBits(1f, 0.45f, 0.3f, 1f);
+    private static final String REINFORCED_BRICK_IMAGE = "block4.png";
 
     private Item item;
     private BrickListener listener;
-    private Texture brickImage;
+    private String brickImage;
+    private int hitPoints;
+    private boolean explosive;
 
-    public Brick(Item item, BrickListener listener){
+    /**
+     * Damage taken during the current tick, applied by the BrickDamageResolver at the end of it.
+     */
+    private int pendingDamage;
+    private int gridColumn;
+    private int gridRow;
+
+    public Brick(Item item, int hitPoints, boolean explosive, BrickListener listener){
         this.item = item;
+        this.hitPoints = hitPoints;
+        this.explosive = explosive;
         this.listener = listener;
         if(item == null) {
-            brickImage = new Texture(Gdx.files.internal("block1.png"));
+            brickImage = "block1.png";
         } else {
             switch(item.getType()){
                 case Multiball:
-                    brickImage = new Texture(Gdx.files.internal("block2.png"));
+                    brickImage = "block2.png";
                     break;
                 case Multipaddle:
-                    brickImage = new Texture(Gdx.files.internal("block3.png"));
+                    brickImage = "block3.png";
                     break;
                 default:
-                    brickImage = new Texture(Gdx.files.internal("block1.png"));
+                    brickImage = "block1.png";
                     break;
             }
         }
@@ -37,18 +48,72 @@ public class Brick extends Rectangle {
     public boolean collisionWithBall(Ball ball) {
         boolean collisionOccurred = false;
         if (ball.overlaps(this)) {
-            listener.onBallCollidedWithBrick(this, item);
+            listener.onBallCollidedWithBrick(this);
             collisionOccurred = true;
         }
         return collisionOccurred;
     }
 
-    public void draw(SpriteBatch batch) {
-        batch.draw(brickImage, this.x, this.y, this.width, this.height);
+    /**
+     * Adds damage to be applied at the end of the tick. Returns true if the brick had no pending
+     * damage yet, i.e. it still has to be queued for resolution.
+     */
+    public boolean addPendingDamage(int damage) {
+        boolean firstDamage = pendingDamage == 0;
+        pendingDamage += damage;
+        return firstDamage;
+    }
+
+    /**
+     * Applies the pending damage. Returns true if this destroyed the brick.
+     */
+    public boolean applyPendingDamage() {
+        boolean wasDestroyed = isDestroyed();
+        hitPoints -= pendingDamage;
+        pendingDamage = 0;
+        return !wasDestroyed && isDestroyed();
+    }
+
+    public boolean isDestroyed() {
+        return hitPoints <= 0;
+    }
+
+    public int getHitPoints() {
+        return hitPoints;
+    }
+
+    public boolean isExplosive() {
+        return explosive;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public void setGridCell(int gridColumn, int gridRow) {
+        this.gridColumn = gridColumn;
+        this.gridRow = gridRow;
+    }
+
+    public int getGridColumn() {
+        return gridColumn;
+    }
+
+    public int getGridRow() {
+        return gridRow;
+    }
+
+    public void draw(RenderQueue renderQueue) {
+        String image = hitPoints > 1 ? REINFORCED_BRICK_IMAGE : brickImage;
+        if (explosive) {
+            renderQueue.draw(image, this.x, this.y, this.width, this.height, EXPLOSIVE_TINT, RenderQueue.LAYER_BRICKS);
+        } else {
+            renderQueue.draw(image, this.x, this.y, this.width, this.height, RenderQueue.LAYER_BRICKS);
+        }
     }
 
     public interface BrickListener {
 
-        void onBallCollidedWithBrick(Brick brick, Item item);
+        void onBallCollidedWithBrick(Brick brick);
     }
 }
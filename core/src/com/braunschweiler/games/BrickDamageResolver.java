@@ -0,0 +1,86 @@
+package com.braunschweiler.games;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the damage dealt to bricks during a tick and applies it in a single pass at the end of
+ * the tick. Destroyed explosive bricks damage the bricks in the surrounding grid cells, which are
+ * resolved in the same pass, so a whole chain reaction completes within one frame.
+ *
+ * Every brick is destroyed at most once and an explosion damages at most 8 neighbours, so the
+ * work per tick is linear in the number of damaged bricks.
+ */
+public class BrickDamageResolver {
+    public static final int BALL_DAMAGE = 1;
+    public static final int EXPLOSION_DAMAGE = 1;
+
+    private BrickGrid brickGrid;
+    private DestructionListener listener;
+    /** Bricks with pending damage. Grows while resolving, when explosions damage neighbours. */
+    private List<Brick> damagedBricks;
+    private List<Brick> destroyedBricks;
+
+    public BrickDamageResolver(BrickGrid brickGrid, DestructionListener listener) {
+        this.brickGrid = brickGrid;
+        this.listener = listener;
+        damagedBricks = new ArrayList<Brick>();
+        destroyedBricks = new ArrayList<Brick>();
+    }
+
+    public void addDamage(Brick brick, int damage) {
+        if (!brick.isDestroyed() && brick.addPendingDamage(damage)) {
+            damagedBricks.add(brick);
+        }
+    }
+
+    /**
+     * Applies all damage accumulated since the last call, including chain reactions, removes
+     * destroyed bricks from the grid and notifies the listener about them.
+     *
+     * @return the bricks destroyed during this tick. Only valid until the next call.
+     */
+    public List<Brick> resolve() {
+        destroyedBricks.clear();
+        //Index based, since explosions append to the list while it is being processed
+        for (int i = 0; i < damagedBricks.size(); i++) {
+            Brick brick = damagedBricks.get(i);
+            if (!brick.applyPendingDamage()) {
+                continue;
+            }
+            brickGrid.remove(brick);
+            destroyedBricks.add(brick);
+            if (brick.isExplosive()) {
+                explode(brick);
+            }
+        }
+        damagedBricks.clear();
+
+        for (int i = 0; i < destroyedBricks.size(); i++) {
+            Brick brick = destroyedBricks.get(i);
+            listener.onBrickDestroyed(brick, brick.getItem());
+        }
+        return destroyedBricks;
+    }
+
+    private void explode(Brick brick) {
+        for (int row = brick.getGridRow() - 1; row <= brick.getGridRow() + 1; row++) {
+            for (int column = brick.getGridColumn() - 1; column <= brick.getGridColumn() + 1; column++) {
+                Brick neighbour = brickGrid.get(column, row);
+                if (neighbour != null) {
+                    addDamage(neighbour, EXPLOSION_DAMAGE);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        damagedBricks.clear();
+        destroyedBricks.clear();
+    }
+
+    public interface DestructionListener {
+
+        void onBrickDestroyed(Brick brick, Item item);
+    }
+}
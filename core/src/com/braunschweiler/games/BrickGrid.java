@@ -0,0 +1,123 @@
+package com.braunschweiler.games;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Spatial index of the bricks, which are laid out in a regular grid. Lets balls and explosions
+ * find the bricks around them by cell instead of scanning the whole brick list.
+ *
+ * Row 0 is the top row, column 0 the leftmost column.
+ */
+public class BrickGrid {
+    private float originX;
+    private float topY;
+    private float cellWidth;
+    private float cellHeight;
+    private int nrOfColumns;
+    private int nrOfRows;
+    private Brick[] cells;
+    /** Lets lookups skip rows that were cleared completely, which is common later in a round. */
+    private int[] nrOfBricksInRow;
+
+    public BrickGrid(float originX, float topY, float cellWidth, float cellHeight, int nrOfColumns, int nrOfRows) {
+        this.originX = originX;
+        this.topY = topY;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.nrOfColumns = nrOfColumns;
+        this.nrOfRows = nrOfRows;
+        cells = new Brick[nrOfColumns * nrOfRows];
+        nrOfBricksInRow = new int[nrOfRows];
+    }
+
+    public void clear() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = null;
+        }
+        for (int row = 0; row < nrOfRows; row++) {
+            nrOfBricksInRow[row] = 0;
+        }
+    }
+
+    /**
+     * Places the brick in the given cell and sets its bounds to the cell's.
+     */
+    public void add(Brick brick, int column, int row) {
+        brick.x = originX + column * cellWidth;
+        brick.y = topY - cellHeight - row * cellHeight;
+        brick.width = cellWidth;
+        brick.height = cellHeight;
+        brick.setGridCell(column, row);
+        if (cells[row * nrOfColumns + column] == null) {
+            nrOfBricksInRow[row]++;
+        }
+        cells[row * nrOfColumns + column] = brick;
+    }
+
+    public void remove(Brick brick) {
+        int index = brick.getGridRow() * nrOfColumns + brick.getGridColumn();
+        if (cells[index] == brick) {
+            cells[index] = null;
+            nrOfBricksInRow[brick.getGridRow()]--;
+        }
+    }
+
+    /**
+     * Returns the brick in the given cell, or null if the cell is empty or outside the grid.
+     */
+    public Brick get(int column, int row) {
+        if (column < 0 || column >= nrOfColumns || row < 0 || row >= nrOfRows) {
+            return null;
+        }
+        return cells[row * nrOfColumns + column];
+    }
+
+    /**
+     * Returns the bricks of the cells overlapping the given area (e.g. a ball), in the result
+     * array. Returns how many were found; the result array must hold at least maxBricksOverlapping().
+     */
+    public int findBricksOverlapping(Rectangle area, Brick[] result) {
+        int nrOfBricks = 0;
+        int firstColumn = Math.max(0, (int) Math.floor((area.x - originX) / cellWidth));
+        int lastColumn = Math.min(nrOfColumns - 1, (int) Math.floor((area.x + area.width - originX) / cellWidth));
+        int firstRow = Math.max(0, (int) Math.floor((topY - (area.y + area.height)) / cellHeight));
+        int lastRow = Math.min(nrOfRows - 1, (int) Math.floor((topY - area.y) / cellHeight));
+        for (int row = firstRow; row <= lastRow; row++) {
+            if (nrOfBricksInRow[row] == 0) {
+                continue;
+            }
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Brick brick = cells[row * nrOfColumns + column];
+                if (brick != null && nrOfBricks < result.length) {
+                    result[nrOfBricks++] = brick;
+                }
+            }
+        }
+        return nrOfBricks;
+    }
+
+    public float getCellWidth() {
+        return cellWidth;
+    }
+
+    public float getCellHeight() {
+        return cellHeight;
+    }
+
+    public float getTopY() {
+        return topY;
+    }
+
+    public float getBottomY() {
+        return topY - nrOfRows * cellHeight;
+    }
+
+    /**
+     * The largest number of cells an area of the given size can overlap.
+     */
+    public int maxBricksOverlapping(float width, float height) {
+        int columns = Math.min(nrOfColumns, (int) Math.ceil(width / cellWidth) + 1);
+        int rows = Math.min(nrOfRows, (int) Math.ceil(height / cellHeight) + 1);
+        return columns * rows;
+    }
+}
@@ -1,8 +1,5 @@
 package com.braunschweiler.games;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector3;
 
@@ -11,18 +8,19 @@ import com.badlogic.gdx.math.Vector3;
  */
 public class Paddle extends Rectangle {
     private static final int PADDLE_WIDTH = 128;
-    private static final int PADDLE_HEIGHT = 32;
+    public static final int PADDLE_HEIGHT = 32;
+    public static final int PADDLE_Y = 20;
     private static final int PADDLE_NEUTRAL_COLLISION_ZONE = PADDLE_WIDTH / 8;
     private static final int SPACE_BETWEEN_PADDLES = 60;
     private static final int NR_OF_HITS_BEFORE_DESTROYED = 3;
+    private static final String PADDLE_IMAGE = "paddle.png";
+    private static final String PADDLE_IMAGE_DAMAGED_1 = "paddle_damaged_1.png";
+    private static final String PADDLE_IMAGE_DAMAGED_2 = "paddle_damaged_2.png";
 
     private int viewportWidth;
     private PaddlePosition paddlePosition;
     private boolean destructible;
     private PaddleListener listener;
-    private Texture paddleImage;
-    private Texture paddleImageDamaged1;
-    private Texture paddleImageDamaged2;
     private int paddleOffset;
     private int nrOfCollisions;
 
@@ -31,14 +29,11 @@ public class Paddle extends Rectangle {
         this.paddlePosition = paddlePosition;
         this.destructible = destructible;
         this.listener = listener;
-        paddleImage = new Texture(Gdx.files.internal("paddle.png"));
-        paddleImageDamaged1 = new Texture(Gdx.files.internal("paddle_damaged_1.png"));
-        paddleImageDamaged2 = new Texture(Gdx.files.internal("paddle_damaged_2.png"));
     }
 
     public void initialize() {
         this.x = viewportWidth / 2 - PADDLE_WIDTH / 2;
-        this.y = 20;
+        this.y = PADDLE_Y;
         this.width = PADDLE_WIDTH;
         this.height = PADDLE_HEIGHT;
 
@@ -81,16 +76,20 @@ public class Paddle extends Rectangle {
         this.x = (touchPos.x - PADDLE_WIDTH / 2) + paddleOffset;
     }
 
-    public void draw(SpriteBatch batch) {
+    public PaddlePosition getPaddlePosition() {
+        return paddlePosition;
+    }
+
+    public void draw(RenderQueue renderQueue) {
         switch(nrOfCollisions){
             case 0:
-                batch.draw(paddleImage, this.x, this.y);
+                renderQueue.draw(PADDLE_IMAGE, this.x, this.y, RenderQueue.LAYER_PADDLES);
                 break;
             case 1:
-                batch.draw(paddleImageDamaged1, this.x, this.y);
+                renderQueue.draw(PADDLE_IMAGE_DAMAGED_1, this.x, this.y, RenderQueue.LAYER_PADDLES);
                 break;
             case 2:
-                batch.draw(paddleImageDamaged2, this.x, this.y);
+                renderQueue.draw(PADDLE_IMAGE_DAMAGED_2, this.x, this.y, RenderQueue.LAYER_PADDLES);
                 break;
         }
     }
@@ -0,0 +1,192 @@
+package com.braunschweiler.games;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Matrix4;
+
+import java.util.Arrays;
+
+/**
+ * Collects all sprites and text drawn during a frame, and draws them through a single SpriteBatch
+ * sorted by layer and texture. Every texture switch causes the batch to issue a draw call, so
+ * sorting keeps the number of draw calls down to roughly the number of distinct textures per layer.
+ * With the TextureCache's atlas there is only a single texture, so a frame is one draw call.
+ *
+ * Within a layer the draw order is undefined apart from grouping by texture, so anything that
+ * must be drawn on top of something else needs a higher layer.
+ */
+public class RenderQueue {
+    public static final int LAYER_BALLS = 0;
+    public static final int LAYER_PADDLES = 1;
+    public static final int LAYER_BRICKS = 2;
+    public static final int LAYER_TEXT = 3;
+
+    /** The largest batch size SpriteBatch supports, so a full batch never forces an extra draw call. */
+    private static final int BATCH_SIZE = 8191;
+    private static final int INITIAL_CAPACITY = 64;
+    /** Commands are identified by the low bits of their sort key, which limits them per frame. */
+    private static final int COMMAND_INDEX_BITS = 16;
+    private static final int MAX_COMMANDS = 1 << COMMAND_INDEX_BITS;
+    private static final int TEXTURE_HANDLE_BITS = 32;
+    private static final float WHITE = Color.WHITE.toFloatBits();
+
+    private TextureCache textures;
+    private SpriteBatch batch;
+    private RenderCommand[] commands;
+    private long[] sortKeys;
+    private int nrOfCommands;
+
+    private int drawCalls;
+    private int textureSwitches;
+    private int nrOfDrawnCommands;
+
+    public RenderQueue(TextureCache textures) {
+        this.textures = textures;
+        batch = new SpriteBatch(BATCH_SIZE);
+        commands = new RenderCommand[INITIAL_CAPACITY];
+        sortKeys = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Draws the image with the given internal path at its original size. Images are looked up in
+     * the TextureCache here, so game objects only refer to them by path and never load textures.
+     */
+    public void draw(String image, float x, float y, int layer) {
+        TextureRegion region = textures.get(image);
+        draw(region, x, y, region.getRegionWidth(), region.getRegionHeight(), WHITE, layer);
+    }
+
+    public void draw(String image, float x, float y, float width, float height, int layer) {
+        draw(textures.get(image), x, y, width, height, WHITE, layer);
+    }
+
+    /**
+     * Draws the texture tinted with the given packed color (see Color.toFloatBits()). Changing the
+     * tint doesn't cost a draw call, sprites with different tints are still batched together.
+     */
+    public void draw(String image, float x, float y, float width, float height, float packedColor, int layer) {
+        draw(textures.get(image), x, y, width, height, packedColor, layer);
+    }
+
+    private void draw(TextureRegion region, float x, float y, float width, float height, float packedColor, int layer) {
+        RenderCommand command = nextCommand(region, layer);
+        if (command != null) {
+            command.x = x;
+            command.y = y;
+            command.width = width;
+            command.height = height;
+            command.packedColor = packedColor;
+            command.font = null;
+            command.text = null;
+        }
+    }
+
+    public void drawText(BitmapFont font, CharSequence text, float x, float y, int layer) {
+        RenderCommand command = nextCommand(font.getRegion(), layer);
+        if (command != null) {
+            command.x = x;
+            command.y = y;
+            command.font = font;
+            command.text = text;
+        }
+    }
+
+    /**
+     * Draws everything queued since the last flush and clears the queue.
+     */
+    public void flush(Matrix4 projection) {
+        for (int i = 0; i < nrOfCommands; i++) {
+            sortKeys[i] = ((long) commands[i].layer << (TEXTURE_HANDLE_BITS + COMMAND_INDEX_BITS))
+                    | ((commands[i].region.getTexture().getTextureObjectHandle() & 0xFFFFFFFFL) << COMMAND_INDEX_BITS)
+                    | i;
+        }
+        Arrays.sort(sortKeys, 0, nrOfCommands);
+
+        batch.setProjectionMatrix(projection);
+        batch.begin();
+        textureSwitches = 0;
+        Texture currentTexture = null;
+        float currentColor = WHITE;
+        batch.setColor(currentColor);
+        for (int i = 0; i < nrOfCommands; i++) {
+            RenderCommand command = commands[(int) (sortKeys[i] & (MAX_COMMANDS - 1))];
+            if (command.region.getTexture() != currentTexture) {
+                if (currentTexture != null) {
+                    textureSwitches++;
+                }
+                currentTexture = command.region.getTexture();
+            }
+            if (command.text != null) {
+                command.font.draw(batch, command.text, command.x, command.y);
+            } else {
+                if (command.packedColor != currentColor) {
+                    currentColor = command.packedColor;
+                    batch.setColor(currentColor);
+                }
+                batch.draw(command.region, command.x, command.y, command.width, command.height);
+            }
+            //Don't keep the last frame's objects reachable
+            command.region = null;
+            command.font = null;
+            command.text = null;
+        }
+        batch.end();
+        drawCalls = batch.renderCalls;
+        nrOfDrawnCommands = nrOfCommands;
+        nrOfCommands = 0;
+    }
+
+    private RenderCommand nextCommand(TextureRegion region, int layer) {
+        if (nrOfCommands == MAX_COMMANDS) {
+            return null;
+        }
+        if (nrOfCommands == commands.length) {
+            int newCapacity = Math.min(MAX_COMMANDS, commands.length * 2);
+            commands = Arrays.copyOf(commands, newCapacity);
+            sortKeys = new long[newCapacity];
+        }
+        RenderCommand command = commands[nrOfCommands];
+        if (command == null) {
+            command = new RenderCommand();
+            commands[nrOfCommands] = command;
+        }
+        nrOfCommands++;
+        command.region = region;
+        command.layer = layer;
+        return command;
+    }
+
+    /** Draw calls issued by the last flush. */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /** Texture switches during the last flush. */
+    public int getTextureSwitches() {
+        return textureSwitches;
+    }
+
+    /** Sprites and texts drawn by the last flush. */
+    public int getNrOfDrawnCommands() {
+        return nrOfDrawnCommands;
+    }
+
+    public void dispose() {
+        batch.dispose();
+    }
+
+    private static class RenderCommand {
+        private TextureRegion region;
+        private int layer;
+        private float x;
+        private float y;
+        private float width;
+        private float height;
+        private float packedColor;
+        private BitmapFont font;
+        private CharSequence text;
+    }
+}
@@ -0,0 +1,40 @@
+package com.braunschweiler.games;
+
+/**
+ * The kinds of events written to the telemetry log. The ordinal is stored in the log, so new
+ * types must only ever be appended at the end.
+ */
+public enum TelemetryEvent {
+    /** A round started. Value is unused. */
+    SessionStarted,
+    /** A round ended. Value is 1 if the player won, 0 if all balls were lost. */
+    SessionEnded,
+    /** A ball hit a brick, which doesn't necessarily destroy it. Value is the number of bricks left before the hit. */
+    BrickHit,
+    /** A destroyed brick released its item. Value is the ordinal of the Item.Type. */
+    ItemDropped,
+    /** A ball left the screen. Value is the number of balls still in play. */
+    BallLost,
+    /** A destructible paddle was destroyed. Value is the ordinal of its PaddlePosition. */
+    PaddleDestroyed,
+    /** A frame took longer than the outlier threshold. Value is the frame time in microseconds. */
+    SlowFrame,
+    /** The writer couldn't keep up and dropped events. Value is the number of dropped events. */
+    EventsDropped,
+    /** A brick ran out of hit points. Value is 1 if the brick was explosive, 0 otherwise. */
+    BrickDestroyed,
+    /**
+     * Written whenever the writer starts. Stores the absolute time instead of the delta, since a
+     * log file is continued across launches of the game. Value is unused.
+     */
+    TimeResync;
+
+    private static final TelemetryEvent[] VALUES = values();
+
+    public static TelemetryEvent fromOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= VALUES.length) {
+            return null;
+        }
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,119 @@
+package com.braunschweiler.games;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streams the events of telemetry log files written by TelemetryWriter to a listener, without
+ * loading whole files into memory.
+ */
+public class TelemetryReader {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private ByteBuffer readBuffer;
+
+    public TelemetryReader() {
+        readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Reads all events of the given log file. A truncated last event (e.g. the game was killed
+     * while writing) is ignored. Events of unknown types are skipped.
+     *
+     * @param listener may be null, to only find the end of the last complete event
+     * @return the length of the file up to the end of the last complete event
+     * @throws IOException if the file can't be read or isn't a telemetry log
+     */
+    public long read(File file, TelemetryListener listener) throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            readBuffer.clear();
+            fill(channel);
+            if (readBuffer.remaining() < TelemetryWriter.HEADER_SIZE || readBuffer.getInt() != TelemetryWriter.MAGIC) {
+                throw new IOException(file + " is not a telemetry log");
+            }
+            byte version = readBuffer.get();
+            if (version != TelemetryWriter.FORMAT_VERSION) {
+                throw new IOException(file + " has unsupported format version " + version);
+            }
+            long time = readBuffer.getLong();
+            long length = TelemetryWriter.HEADER_SIZE;
+
+            while (true) {
+                boolean endOfFile = false;
+                while (readBuffer.remaining() < TelemetryWriter.MAX_EVENT_SIZE && !endOfFile) {
+                    endOfFile = !fill(channel);
+                }
+                if (!readBuffer.hasRemaining()) {
+                    break;
+                }
+                int eventStart = readBuffer.position();
+                int type = readBuffer.get() & 0xFF;
+                long value;
+                if (type == TelemetryEvent.TimeResync.ordinal()) {
+                    if (readBuffer.remaining() < 8) {
+                        //Truncated last event
+                        break;
+                    }
+                    time = readBuffer.getLong();
+                    value = 0;
+                } else {
+                    long delta = getVarInt(readBuffer);
+                    value = delta < 0 ? -1 : getVarInt(readBuffer);
+                    if (value < 0) {
+                        //Truncated last event
+                        break;
+                    }
+                    time += delta;
+                }
+                length += readBuffer.position() - eventStart;
+                TelemetryEvent event = TelemetryEvent.fromOrdinal(type);
+                if (event != null && listener != null) {
+                    listener.onEvent(event, time, (int) value);
+                }
+            }
+            return length;
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Moves unread bytes to the front of the read buffer and reads more from the channel.
+     * Returns false if the end of the channel was reached. Leaves the buffer ready for reading.
+     */
+    private boolean fill(FileChannel channel) throws IOException {
+        if (readBuffer.position() != 0 || readBuffer.limit() != readBuffer.capacity()) {
+            readBuffer.compact();
+        }
+        int bytesRead = channel.read(readBuffer);
+        readBuffer.flip();
+        return bytesRead > 0;
+    }
+
+    /**
+     * Returns the next unsigned varint of the buffer, or -1 if the buffer ends before it does.
+     */
+    private static long getVarInt(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value & 0xFFFFFFFFL;
+            }
+        }
+        return value & 0xFFFFFFFFL;
+    }
+
+    public interface TelemetryListener {
+
+        void onEvent(TelemetryEvent event, long timeMillis, int value);
+    }
+}
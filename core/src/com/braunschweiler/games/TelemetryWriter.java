@@ -0,0 +1,365 @@
+package com.braunschweiler.games;
+
+import com.badlogic.gdx.Gdx;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends gameplay and performance events to a compact binary log.
+ *
+ * record() is called from the game thread and only copies the event into a preallocated ring
+ * buffer. A background thread drains the ring, encodes the events and writes them through a
+ * FileChannel in large chunks. Disk usage is bounded: once a log file reaches maxFileSize a new
+ * one is started, and only the newest maxNrOfFiles files are kept. Files are rotated by size only,
+ * a launch of the game continues the newest file if it has room left.
+ *
+ * Log file layout (see TelemetryReader):
+ * - header: magic (4 bytes), format version (1 byte), base time in epoch millis (8 bytes)
+ * - events: type ordinal (1 byte), millis since the previous event (varint), value (varint)
+ * - TimeResync events, written at the start of every launch: type ordinal (1 byte), time in
+ *   epoch millis (8 bytes)
+ */
+public class TelemetryWriter implements Runnable {
+    public static final int MAGIC = 0x424B544C; //"BKTL"
+    public static final byte FORMAT_VERSION = 2;
+    public static final int HEADER_SIZE = 4 + 1 + 8;
+    public static final String FILE_PREFIX = "telemetry-";
+    public static final String FILE_SUFFIX = ".bin";
+    /** Frames taking longer than this (two frames at 60 fps) are recorded as SlowFrame events. */
+    public static final int SLOW_FRAME_THRESHOLD_MICROS = 33333;
+
+    /** Must be a power of two. */
+    private static final int RING_CAPACITY = 4096;
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+    /** The largest encoded event: type byte and two 5 byte varints. */
+    static final int MAX_EVENT_SIZE = 1 + 5 + 5;
+    private static final long FLUSH_INTERVAL_MILLIS = 250;
+
+    private File directory;
+    private long maxFileSize;
+    private int maxNrOfFiles;
+
+    private byte[] eventTypes;
+    private long[] eventTimes;
+    private int[] eventValues;
+    /** Written by the game thread only. */
+    private AtomicLong head;
+    /** Written by the writer thread only. */
+    private AtomicLong tail;
+    private AtomicLong nrOfDroppedEvents;
+    private long nrOfReportedDroppedEvents;
+
+    private Thread thread;
+    /**
+     * The writer thread waits on this between flushes. It must not be interrupted instead, since
+     * interrupting a thread blocked in FileChannel.write() closes the channel.
+     */
+    private final Object flushSignal = new Object();
+    private volatile boolean running;
+    private ByteBuffer writeBuffer;
+    private FileChannel channel;
+    private long fileSequence;
+    private long lastEventTime;
+    /** The time the deltas in the write buffer are relative to, i.e. the base time of its file. */
+    private long bufferBaseTime;
+
+    public TelemetryWriter(File directory, long maxFileSize, int maxNrOfFiles) {
+        if (maxFileSize <= HEADER_SIZE + WRITE_BUFFER_SIZE) {
+            throw new IllegalArgumentException("maxFileSize must be larger than " + (HEADER_SIZE + WRITE_BUFFER_SIZE) + " bytes");
+        }
+        if (maxNrOfFiles < 1) {
+            throw new IllegalArgumentException("maxNrOfFiles must be at least 1");
+        }
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+        this.maxNrOfFiles = maxNrOfFiles;
+        eventTypes = new byte[RING_CAPACITY];
+        eventTimes = new long[RING_CAPACITY];
+        eventValues = new int[RING_CAPACITY];
+        head = new AtomicLong();
+        tail = new AtomicLong();
+        nrOfDroppedEvents = new AtomicLong();
+        writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this, "TelemetryWriter");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Records an event. Must only be called from the game thread. Never blocks: if the writer
+     * thread falls behind, the event is dropped and counted instead.
+     */
+    public void record(TelemetryEvent event, int value) {
+        long currentHead = head.get();
+        if (currentHead - tail.get() >= RING_CAPACITY) {
+            nrOfDroppedEvents.incrementAndGet();
+            return;
+        }
+        int index = (int) (currentHead & (RING_CAPACITY - 1));
+        eventTypes[index] = (byte) event.ordinal();
+        eventTimes[index] = System.currentTimeMillis();
+        eventValues[index] = value;
+        head.lazySet(currentHead + 1);
+    }
+
+    /**
+     * Records a SlowFrame event if the given frame time is above SLOW_FRAME_THRESHOLD_MICROS.
+     * Meant to be called every frame, regular frames cost a single comparison.
+     */
+    public void recordFrameTime(float deltaTimeSeconds) {
+        int frameTimeMicros = (int) (deltaTimeSeconds * 1000000);
+        if (frameTimeMicros > SLOW_FRAME_THRESHOLD_MICROS) {
+            record(TelemetryEvent.SlowFrame, frameTimeMicros);
+        }
+    }
+
+    /** Events dropped so far because the writer thread fell behind. */
+    public long getNrOfDroppedEvents() {
+        return nrOfDroppedEvents.get();
+    }
+
+    /**
+     * Stops the writer thread after it has written all recorded events.
+     */
+    public void close() {
+        running = false;
+        if (thread != null) {
+            synchronized (flushSignal) {
+                flushSignal.notifyAll();
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            lastEventTime = System.currentTimeMillis();
+            bufferBaseTime = lastEventTime;
+            if (!continueNewestFile()) {
+                openNextFile();
+            }
+            //Events are stored relative to the previous one, which may be from an earlier launch
+            writeBuffer.put((byte) TelemetryEvent.TimeResync.ordinal());
+            writeBuffer.putLong(lastEventTime);
+            while (running) {
+                if (!drain()) {
+                    synchronized (flushSignal) {
+                        if (running) {
+                            try {
+                                flushSignal.wait(FLUSH_INTERVAL_MILLIS);
+                            } catch (InterruptedException e) {
+                                running = false;
+                            }
+                        }
+                    }
+                }
+            }
+            drain();
+        } catch (IOException e) {
+            Gdx.app.error("Telemetry", "Could not write telemetry log, telemetry disabled", e);
+            running = false;
+        } finally {
+            closeChannel();
+        }
+    }
+
+    /**
+     * Encodes all pending events and writes them to the log. Returns false if there was nothing
+     * to write.
+     */
+    private boolean drain() throws IOException {
+        long currentTail = tail.get();
+        long currentHead = head.get();
+        long droppedEvents = nrOfDroppedEvents.get();
+        if (currentTail == currentHead && droppedEvents == nrOfReportedDroppedEvents) {
+            return false;
+        }
+        while (currentTail < currentHead) {
+            int index = (int) (currentTail & (RING_CAPACITY - 1));
+            encode(eventTypes[index], eventTimes[index], eventValues[index]);
+            currentTail++;
+            tail.lazySet(currentTail);
+        }
+        if (droppedEvents != nrOfReportedDroppedEvents) {
+            encode((byte) TelemetryEvent.EventsDropped.ordinal(), System.currentTimeMillis(), (int) Math.min(Integer.MAX_VALUE, droppedEvents - nrOfReportedDroppedEvents));
+            nrOfReportedDroppedEvents = droppedEvents;
+        }
+        flushWriteBuffer();
+        return true;
+    }
+
+    private void encode(byte type, long time, int value) throws IOException {
+        if (writeBuffer.remaining() < MAX_EVENT_SIZE) {
+            flushWriteBuffer();
+        }
+        if (writeBuffer.position() == 0) {
+            bufferBaseTime = lastEventTime;
+        }
+        writeBuffer.put(type);
+        putVarInt(writeBuffer, (int) Math.max(0, Math.min(Integer.MAX_VALUE, time - lastEventTime)));
+        putVarInt(writeBuffer, value);
+        lastEventTime = Math.max(lastEventTime, time);
+    }
+
+    private void flushWriteBuffer() throws IOException {
+        if (writeBuffer.position() == 0) {
+            return;
+        }
+        if (channel.position() + writeBuffer.position() > maxFileSize) {
+            openNextFile();
+        }
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    /**
+     * Opens the newest log file for appending, if it has room left and is written in the current
+     * format. A truncated last event (e.g. the game was killed while writing) is cut off first.
+     * Returns false if a new file has to be started instead.
+     */
+    private boolean continueNewestFile() throws IOException {
+        File[] logFiles = listLogFiles(directory);
+        if (logFiles.length == 0) {
+            return false;
+        }
+        File newestFile = logFiles[logFiles.length - 1];
+        long length;
+        try {
+            length = new TelemetryReader().read(newestFile, null);
+        } catch (IOException e) {
+            //Not readable, or written in an older format
+            return false;
+        }
+        if (length >= maxFileSize) {
+            return false;
+        }
+        fileSequence = fileSequence(newestFile);
+        channel = new RandomAccessFile(newestFile, "rw").getChannel();
+        channel.truncate(length);
+        channel.position(length);
+        return true;
+    }
+
+    /**
+     * Starts a new log file and deletes the oldest ones if there are more than maxNrOfFiles.
+     * Called on startup if the newest file can't be continued, and whenever the current file is full.
+     */
+    private void openNextFile() throws IOException {
+        closeChannel();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        if (fileSequence == 0) {
+            fileSequence = highestFileSequence(directory) + 1;
+        } else {
+            fileSequence++;
+        }
+        for (File file : listLogFiles(directory)) {
+            if (fileSequence(file) <= fileSequence - maxNrOfFiles) {
+                file.delete();
+            }
+        }
+
+        channel = new FileOutputStream(new File(directory, FILE_PREFIX + fileSequence + FILE_SUFFIX)).getChannel();
+        //Events still in the write buffer were encoded relative to bufferBaseTime, they go into the new file
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.put(FORMAT_VERSION);
+        header.putLong(bufferBaseTime);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                //Nothing left to do with the file
+            }
+            channel = null;
+        }
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Returns the log files in the given directory, in the order they were written.
+     */
+    public static File[] listLogFiles(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return new File[0];
+        }
+        int nrOfLogFiles = 0;
+        for (File file : files) {
+            if (fileSequence(file) > 0) {
+                files[nrOfLogFiles++] = file;
+            }
+        }
+        File[] logFiles = new File[nrOfLogFiles];
+        System.arraycopy(files, 0, logFiles, 0, nrOfLogFiles);
+        Arrays.sort(logFiles, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                long sequence1 = fileSequence(file1);
+                long sequence2 = fileSequence(file2);
+                return sequence1 < sequence2 ? -1 : (sequence1 == sequence2 ? 0 : 1);
+            }
+        });
+        return logFiles;
+    }
+
+    private static long highestFileSequence(File directory) {
+        long highestSequence = 0;
+        for (File file : listLogFiles(directory)) {
+            highestSequence = Math.max(highestSequence, fileSequence(file));
+        }
+        return highestSequence;
+    }
+
+    /**
+     * Returns the sequence number of a log file, or 0 if it isn't a log file.
+     */
+    private static long fileSequence(File file) {
+        String name = file.getName();
+        if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.braunschweiler.games;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Packs every sprite image and the page of the HUD font into a single texture atlas on startup.
+ * Sprites can only be batched into the same draw call if they use the same Texture instance, so
+ * with everything on one page a whole frame, text included, is drawn in a single draw call.
+ */
+public class TextureCache {
+    /** Every image drawn by the game objects. Images not listed here can't be drawn. */
+    private static final String[] IMAGES = {
+            "ball.png",
+            "block1.png",
+            "block2.png",
+            "block3.png",
+            "block4.png",
+            "paddle.png",
+            "paddle_damaged_1.png",
+            "paddle_damaged_2.png"
+    };
+    /** The font libGDX uses by default (see BitmapFont()), which ships in the gdx jar. */
+    private static final String FONT_FILE = "com/badlogic/gdx/utils/arial-15.fnt";
+    private static final String FONT_IMAGE = "com/badlogic/gdx/utils/arial-15.png";
+    private static final int ATLAS_PAGE_SIZE = 1024;
+    /** Keeps scaled sprites from sampling their neighbours' pixels. */
+    private static final int ATLAS_PADDING = 2;
+
+    private TextureAtlas atlas;
+    private Map<String, TextureRegion> regions;
+    private BitmapFont font;
+
+    public TextureCache() {
+        PixmapPacker packer = new PixmapPacker(ATLAS_PAGE_SIZE, ATLAS_PAGE_SIZE, Pixmap.Format.RGBA8888, ATLAS_PADDING, false);
+        for (String image : IMAGES) {
+            pack(packer, image, Gdx.files.internal(image));
+        }
+        pack(packer, FONT_IMAGE, Gdx.files.classpath(FONT_IMAGE));
+        atlas = packer.generateTextureAtlas(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest, false);
+        packer.dispose();
+
+        regions = new HashMap<String, TextureRegion>();
+        for (String image : IMAGES) {
+            regions.put(image, atlas.findRegion(image));
+        }
+        font = new BitmapFont(Gdx.files.classpath(FONT_FILE), atlas.findRegion(FONT_IMAGE), false);
+    }
+
+    private static void pack(PixmapPacker packer, String name, FileHandle file) {
+        //The packer copies the pixels into its page
+        Pixmap pixmap = new Pixmap(file);
+        packer.pack(name, pixmap);
+        pixmap.dispose();
+    }
+
+    /**
+     * Returns the atlas region of the image with the given internal path.
+     */
+    public TextureRegion get(String internalPath) {
+        TextureRegion region = regions.get(internalPath);
+        if (region == null) {
+            throw new IllegalArgumentException(internalPath + " isn't packed into the texture atlas");
+        }
+        return region;
+    }
+
+    /**
+     * The HUD font, whose glyphs are drawn from the atlas page. Owned by the cache.
+     */
+    public BitmapFont getFont() {
+        return font;
+    }
+
+    public void dispose() {
+        font.dispose();
+        atlas.dispose();
+        regions.clear();
+    }
+}
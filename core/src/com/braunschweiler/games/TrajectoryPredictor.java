@@ -0,0 +1,330 @@
+package com.braunschweiler.games;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Predicts where each ball will cross the paddle line, for the aim-assist preview and AI paddles.
+ *
+ * The path is computed analytically (ray casts against the edges of the screen and the bricks)
+ * instead of stepping the ball frame by frame. Only the bricks in the BrickGrid cells along the
+ * path are tested, so the cost of a prediction depends on the length of the path rather than on
+ * the number of bricks.
+ *
+ * Trajectories are cached per ball and only recomputed when they become invalid: the ball
+ * bounced or changed speed (see Ball.getVelocityRevision()), or a brick the path reflects off was
+ * damaged or destroyed. The latter is checked lazily when the trajectory is queried, so damaging
+ * bricks costs nothing here even when a chain reaction destroys thousands of them in one frame.
+ *
+ * A brick is expected to take one hit point of damage per reflection, so the path passes through
+ * a brick once it has reflected off it as many times as the brick has hit points left.
+ */
+public class TrajectoryPredictor {
+    /**
+     * Upper bound of reflections followed for a single prediction. A ball that keeps bouncing
+     * between bricks and walls for longer than this is reported as not landing.
+     */
+    public static final int MAX_BOUNCES = 32;
+    private static final float EPSILON = 0.0001f;
+
+    private int viewPortWidth;
+    private int viewPortHeight;
+    private float paddleLineY;
+    private BrickGrid brickGrid;
+    /** The area swept by the ball during one step of the walk through the grid. */
+    private Rectangle sweptArea;
+    private Brick[] bricksInSweptArea;
+
+    /**
+     * Balls and bricks extend Rectangle, which compares by value. Cache entries must be keyed by
+     * identity since balls move (and two balls can occupy the same spot).
+     */
+    private Map<Ball, Trajectory> trajectories;
+    private long nrOfQueries;
+    private long nrOfRecomputations;
+
+    public TrajectoryPredictor(int viewPortWidth, int viewPortHeight, float paddleLineY, BrickGrid brickGrid) {
+        this.viewPortWidth = viewPortWidth;
+        this.viewPortHeight = viewPortHeight;
+        this.paddleLineY = paddleLineY;
+        this.brickGrid = brickGrid;
+        sweptArea = new Rectangle();
+        bricksInSweptArea = new Brick[0];
+        trajectories = new IdentityHashMap<Ball, Trajectory>();
+    }
+
+    /**
+     * Returns the cached trajectory of the given ball, recomputing it first if it is no longer valid.
+     * The returned object is owned by the predictor and is updated in place on recomputation.
+     */
+    public Trajectory getTrajectory(Ball ball) {
+        Trajectory trajectory = trajectories.get(ball);
+        if (trajectory == null) {
+            trajectory = new Trajectory();
+            trajectories.put(ball, trajectory);
+        }
+        nrOfQueries++;
+        if (!trajectory.valid || trajectory.velocityRevision != ball.getVelocityRevision() || trajectory.bricksHitWereDamaged()) {
+            nrOfRecomputations++;
+            predict(ball.x, ball.y, ball.width, ball.getXVelocity(), ball.getYVelocity(), trajectory);
+            trajectory.velocityRevision = ball.getVelocityRevision();
+        }
+        return trajectory;
+    }
+
+    public void remove(Ball ball) {
+        trajectories.remove(ball);
+    }
+
+    public void clear() {
+        trajectories.clear();
+    }
+
+    /** Calls of getTrajectory() since the last resetStatistics(). */
+    public long getNrOfQueries() {
+        return nrOfQueries;
+    }
+
+    /** Calls of getTrajectory() that had to recompute the trajectory since the last resetStatistics(). */
+    public long getNrOfRecomputations() {
+        return nrOfRecomputations;
+    }
+
+    public void resetStatistics() {
+        nrOfQueries = 0;
+        nrOfRecomputations = 0;
+    }
+
+    /**
+     * Computes the path of a square ball of the given size, starting with its bottom left corner at
+     * (x, y) and moving by (xVeloc, yVeloc) per frame, until it reaches the paddle line.
+     */
+    public void predict(float x, float y, float size, float xVeloc, float yVeloc, Trajectory trajectory) {
+        trajectory.reset();
+        trajectory.addPoint(x, y);
+
+        float maxX = viewPortWidth - size;
+        float maxY = viewPortHeight - size;
+        float elapsedFrames = 0;
+        for (int bounce = 0; bounce <= MAX_BOUNCES; bounce++) {
+            if (xVeloc == 0 && yVeloc == 0) {
+                break;
+            }
+
+            if (yVeloc < 0 && y < paddleLineY) {
+                //The ball already passed the paddle line
+                break;
+            }
+
+            //Time (in frames) until the ball reaches a wall or the paddle line
+            float xWallTime = Float.MAX_VALUE;
+            float yWallTime = Float.MAX_VALUE;
+            if (xVeloc < 0) {
+                xWallTime = Math.max(0, -x / xVeloc);
+            } else if (xVeloc > 0) {
+                xWallTime = Math.max(0, (maxX - x) / xVeloc);
+            }
+            if (yVeloc > 0) {
+                yWallTime = Math.max(0, (maxY - y) / yVeloc);
+            } else if (yVeloc < 0) {
+                yWallTime = (paddleLineY - y) / yVeloc;
+            }
+            float nearestTime = Math.min(xWallTime, yWallTime);
+            boolean reflectX = xWallTime <= yWallTime;
+            boolean reflectY = yWallTime <= xWallTime;
+            boolean reachesPaddleLine = yVeloc < 0 && reflectY;
+            Brick nearestBrick = null;
+
+            //The nearest brick in the way, if it is hit before the walls. Walks along the path in
+            //steps of about a cell or the ball's size (whichever is larger, so small cells aren't
+            //scanned over and over), only while the ball overlaps the rows of the grid, and stops
+            //at the first step that contains a hit
+            float stepFrames = Math.min(xVeloc == 0 ? Float.MAX_VALUE : Math.max(size, brickGrid.getCellWidth()) / Math.abs(xVeloc),
+                    yVeloc == 0 ? Float.MAX_VALUE : Math.max(size, brickGrid.getCellHeight()) / Math.abs(yVeloc));
+            float stepStart = Math.max(0, entryTime(y, yVeloc, brickGrid.getBottomY() - size, brickGrid.getTopY()));
+            float gridExit = exitTime(y, yVeloc, brickGrid.getBottomY() - size, brickGrid.getTopY());
+            while (stepStart < Math.min(nearestTime, gridExit)) {
+                float stepEnd = Math.min(stepStart + stepFrames, Math.min(nearestTime, gridExit));
+                float startX = x + xVeloc * stepStart;
+                float startY = y + yVeloc * stepStart;
+                float endX = x + xVeloc * stepEnd;
+                float endY = y + yVeloc * stepEnd;
+                sweptArea.set(Math.min(startX, endX), Math.min(startY, endY), Math.abs(endX - startX) + size, Math.abs(endY - startY) + size);
+                int capacity = brickGrid.maxBricksOverlapping(sweptArea.width, sweptArea.height);
+                if (bricksInSweptArea.length < capacity) {
+                    bricksInSweptArea = new Brick[capacity];
+                }
+                int nrOfBricks = brickGrid.findBricksOverlapping(sweptArea, bricksInSweptArea);
+                for (int i = 0; i < nrOfBricks; i++) {
+                    Brick brick = bricksInSweptArea[i];
+                    if (trajectory.nrOfHits(brick) >= brick.getHitPoints()) {
+                        //Destroyed by the earlier hits of this path
+                        continue;
+                    }
+                    float xEntry = entryTime(x, xVeloc, brick.x - size, brick.x + brick.width);
+                    float xExit = exitTime(x, xVeloc, brick.x - size, brick.x + brick.width);
+                    float yEntry = entryTime(y, yVeloc, brick.y - size, brick.y + brick.height);
+                    float yExit = exitTime(y, yVeloc, brick.y - size, brick.y + brick.height);
+                    float entry = Math.max(xEntry, yEntry);
+                    float exit = Math.min(xExit, yExit);
+                    if (entry < EPSILON || entry >= exit || entry >= nearestTime) {
+                        continue;
+                    }
+                    nearestTime = entry;
+                    nearestBrick = brick;
+                    reachesPaddleLine = false;
+                    //Reflect along the axis through which the ball entered the brick
+                    reflectX = xEntry >= yEntry;
+                    reflectY = yEntry >= xEntry;
+                }
+                //Bricks of later steps are entered later, unless the hit lies beyond this step
+                if (nearestBrick != null && nearestTime <= stepEnd) {
+                    break;
+                }
+                stepStart = stepEnd;
+            }
+
+            if (nearestTime == Float.MAX_VALUE) {
+                break;
+            }
+            x += xVeloc * nearestTime;
+            y += yVeloc * nearestTime;
+            elapsedFrames += nearestTime;
+            trajectory.addPoint(x, y);
+
+            if (reachesPaddleLine) {
+                trajectory.landsOnPaddleLine = true;
+                trajectory.landingX = x;
+                trajectory.framesToLanding = elapsedFrames;
+                break;
+            }
+            if (nearestBrick != null) {
+                trajectory.addHit(nearestBrick);
+            }
+            if (reflectX) {
+                xVeloc *= -1;
+            }
+            if (reflectY) {
+                yVeloc *= -1;
+            }
+        }
+        trajectory.valid = true;
+    }
+
+    private static float entryTime(float position, float veloc, float min, float max) {
+        if (veloc > 0) {
+            return (min - position) / veloc;
+        } else if (veloc < 0) {
+            return (max - position) / veloc;
+        }
+        return position > min && position < max ? -Float.MAX_VALUE : Float.MAX_VALUE;
+    }
+
+    private static float exitTime(float position, float veloc, float min, float max) {
+        if (veloc > 0) {
+            return (max - position) / veloc;
+        } else if (veloc < 0) {
+            return (min - position) / veloc;
+        }
+        return position > min && position < max ? Float.MAX_VALUE : -Float.MAX_VALUE;
+    }
+
+    /**
+     * The predicted path of a ball: the corner points of its polyline (bottom left corner of the
+     * ball), the bricks it reflects off and where it crosses the paddle line.
+     */
+    public static class Trajectory {
+        private float[] points = new float[(MAX_BOUNCES + 2) * 2];
+        private int nrOfPoints;
+        /** Every brick the path reflects off, once, in the order they are first hit. */
+        private List<Brick> bricksHit = new ArrayList<Brick>();
+        /** The index of each brick in bricksHit, so hits can be counted without scanning it. */
+        private Map<Brick, Integer> bricksHitIndices = new IdentityHashMap<Brick, Integer>();
+        /** Per entry of bricksHit: how often the path reflects off it. */
+        private int[] nrOfHits = new int[MAX_BOUNCES + 1];
+        /** Per entry of bricksHit: its hit points when the path was predicted. */
+        private int[] hitPointsWhenPredicted = new int[MAX_BOUNCES + 1];
+        private boolean landsOnPaddleLine;
+        private float landingX;
+        private float framesToLanding;
+        private boolean valid;
+        private int velocityRevision;
+
+        private void reset() {
+            nrOfPoints = 0;
+            bricksHit.clear();
+            bricksHitIndices.clear();
+            landsOnPaddleLine = false;
+            landingX = 0;
+            framesToLanding = 0;
+        }
+
+        private void addPoint(float x, float y) {
+            points[nrOfPoints * 2] = x;
+            points[nrOfPoints * 2 + 1] = y;
+            nrOfPoints++;
+        }
+
+        private void addHit(Brick brick) {
+            Integer index = bricksHitIndices.get(brick);
+            if (index == null) {
+                index = bricksHit.size();
+                bricksHit.add(brick);
+                bricksHitIndices.put(brick, index);
+                nrOfHits[index] = 0;
+                hitPointsWhenPredicted[index] = brick.getHitPoints();
+            }
+            nrOfHits[index]++;
+        }
+
+        private int nrOfHits(Brick brick) {
+            Integer index = bricksHitIndices.get(brick);
+            return index == null ? 0 : nrOfHits[index];
+        }
+
+        /**
+         * True if a brick the path reflects off took damage since the path was predicted. The
+         * path may now pass through it earlier, or not reach it at all if it was destroyed.
+         */
+        private boolean bricksHitWereDamaged() {
+            for (int i = 0; i < bricksHit.size(); i++) {
+                if (bricksHit.get(i).getHitPoints() != hitPointsWhenPredicted[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public int getNrOfPoints() {
+            return nrOfPoints;
+        }
+
+        public float getPointX(int index) {
+            return points[index * 2];
+        }
+
+        public float getPointY(int index) {
+            return points[index * 2 + 1];
+        }
+
+        /**
+         * False if the ball bounces around for longer than MAX_BOUNCES, or isn't moving towards
+         * the paddle line at all (e.g. it already passed it).
+         */
+        public boolean landsOnPaddleLine() {
+            return landsOnPaddleLine;
+        }
+
+        public float getLandingX() {
+            return landingX;
+        }
+
+        public float getFramesToLanding() {
+            return framesToLanding;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.braunschweiler.games.desktop;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.braunschweiler.games.Ball;
+import com.braunschweiler.games.Breakout;
+import com.braunschweiler.games.Brick;
+import com.braunschweiler.games.BrickDamageResolver;
+import com.braunschweiler.games.BrickGrid;
+import com.braunschweiler.games.Item;
+import com.braunschweiler.games.Paddle;
+import com.braunschweiler.games.TelemetryEvent;
+import com.braunschweiler.games.TelemetryWriter;
+import com.braunschweiler.games.TrajectoryPredictor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks a worst case chain reaction: a large grid filled with explosive bricks (some of them
+ * reinforced), set off by a single ball hit while hundreds of balls have cached trajectories into
+ * the grid. Measures the work Breakout does for it within one frame, compared against the frame
+ * budget at 60 fps:
+ *
+ * - BrickDamageResolver.resolve(), with a listener recording telemetry like Breakout's
+ * - removing the destroyed bricks from the brick list, like Breakout.resolveBrickDamage()
+ * - querying the trajectory of every ball, which recomputes the ones into the destroyed bricks
+ *
+ * Doesn't need a GL context, run it with the desktop project's runtime classpath.
+ */
+public class ChainReactionBenchmark implements BrickDamageResolver.DestructionListener {
+    private static final int NR_OF_COLUMNS = 100;
+    private static final int NR_OF_ROWS = 100;
+    private static final int NR_OF_BALLS = 300;
+    private static final int NR_OF_WARM_UP_ROUNDS = 100;
+    private static final int NR_OF_ROUNDS = 20;
+    private static final long FRAME_BUDGET_NANOS = 1000000000L / 60;
+
+    private List<Brick> bricks;
+    private BrickGrid brickGrid;
+    private BrickDamageResolver brickDamageResolver;
+    private TrajectoryPredictor trajectoryPredictor;
+    private TelemetryWriter telemetry;
+    private List<Ball> balls;
+    private List<Paddle> paddles;
+
+    public static void main (String[] arg) {
+        new ChainReactionBenchmark().run();
+    }
+
+    public ChainReactionBenchmark() {
+        bricks = new ArrayList<Brick>();
+        brickGrid = new BrickGrid(0, Breakout.VIEWPORT_HEIGHT, Breakout.VIEWPORT_WIDTH / NR_OF_COLUMNS, Breakout.BRICK_AREA_HEIGHT / NR_OF_ROWS, NR_OF_COLUMNS, NR_OF_ROWS);
+        brickDamageResolver = new BrickDamageResolver(brickGrid, this);
+        trajectoryPredictor = new TrajectoryPredictor(Breakout.VIEWPORT_WIDTH, Breakout.VIEWPORT_HEIGHT, Paddle.PADDLE_Y + Paddle.PADDLE_HEIGHT, brickGrid);
+        File telemetryDirectory = new File(System.getProperty("java.io.tmpdir"), "breakout-benchmark-" + Breakout.TELEMETRY_DIRECTORY);
+        telemetry = new TelemetryWriter(telemetryDirectory, Breakout.TELEMETRY_MAX_FILE_SIZE, Breakout.TELEMETRY_MAX_NR_OF_FILES);
+        balls = new ArrayList<Ball>();
+        for (int i = 0; i < NR_OF_BALLS; i++) {
+            balls.add(new Ball(Breakout.VIEWPORT_WIDTH, Breakout.VIEWPORT_HEIGHT));
+        }
+        //A paddle spanning the whole screen, which sends every ball back up towards the bricks
+        Paddle floor = new Paddle(Breakout.VIEWPORT_WIDTH, Paddle.PaddlePosition.Center, false, null);
+        floor.initialize();
+        floor.x = 0;
+        floor.width = Breakout.VIEWPORT_WIDTH;
+        paddles = new ArrayList<Paddle>();
+        paddles.add(floor);
+    }
+
+    private void run() {
+        telemetry.start();
+        long resolveNanos = 0;
+        long totalNanos = 0;
+        long maxNanos = 0;
+        int nrOfDestroyedBricks = 0;
+        int nrOfRecomputations = 0;
+        //The warm up rounds let the JIT compile everything before it is measured
+        for (int round = -NR_OF_WARM_UP_ROUNDS; round < NR_OF_ROUNDS; round++) {
+            createBricks();
+            for (int i = 0; i < balls.size(); i++) {
+                Ball ball = balls.get(i);
+                ball.initialize(Breakout.BRICK_AREA_HEIGHT);
+                ball.x = MathUtils.random(0, Breakout.VIEWPORT_WIDTH - ball.width);
+                //Balls start moving down, so their paths only reach the bricks once they bounced off the paddle
+                while (ball.getYVelocity() < 0) {
+                    ball.updatePosition(brickGrid, paddles);
+                }
+                trajectoryPredictor.getTrajectory(ball);
+            }
+            trajectoryPredictor.resetStatistics();
+            //A ball hit strong enough to destroy the brick in the center, even if it is reinforced
+            brickDamageResolver.addDamage(brickGrid.get(NR_OF_COLUMNS / 2, NR_OF_ROWS / 2), Breakout.REINFORCED_BRICK_HIT_POINTS);
+
+            long start = System.nanoTime();
+            nrOfDestroyedBricks = brickDamageResolver.resolve().size();
+            long resolvedTime = System.nanoTime();
+            removeDestroyedBricks();
+            for (int i = 0; i < balls.size(); i++) {
+                trajectoryPredictor.getTrajectory(balls.get(i));
+            }
+            long end = System.nanoTime();
+
+            if (round >= 0) {
+                resolveNanos += resolvedTime - start;
+                totalNanos += end - start;
+                maxNanos = Math.max(maxNanos, end - start);
+                nrOfRecomputations = (int) trajectoryPredictor.getNrOfRecomputations();
+            }
+        }
+        telemetry.close();
+
+        System.out.println("Chain reaction, grid: " + NR_OF_COLUMNS + "x" + NR_OF_ROWS + " explosive bricks, balls: " + NR_OF_BALLS + ", rounds: " + NR_OF_ROUNDS);
+        System.out.println("Bricks destroyed: " + nrOfDestroyedBricks + ", trajectories recomputed: " + nrOfRecomputations);
+        System.out.println("resolve():         " + (resolveNanos / NR_OF_ROUNDS / 1000) + " us avg");
+        System.out.println("Whole frame's work: " + (totalNanos / NR_OF_ROUNDS / 1000) + " us avg, " + (maxNanos / 1000) + " us max");
+        System.out.println("Frame budget at 60 fps: " + (FRAME_BUDGET_NANOS / 1000) + " us (" + (100f * totalNanos / NR_OF_ROUNDS / FRAME_BUDGET_NANOS) + " % used on avg)");
+    }
+
+    private void createBricks() {
+        bricks.clear();
+        brickGrid.clear();
+        brickDamageResolver.clear();
+        trajectoryPredictor.clear();
+        for (int row = 0; row < NR_OF_ROWS; row++) {
+            for (int column = 0; column < NR_OF_COLUMNS; column++) {
+                //Reinforced as often as in the game, so some bricks have to be caught by several explosions
+                int hitPoints = MathUtils.random(1, Breakout.CHANCE_OF_REINFORCED_BRICK) == 1 ? Breakout.REINFORCED_BRICK_HIT_POINTS : 1;
+                Brick brick = new Brick(null, hitPoints, true, null);
+                brickGrid.add(brick, column, row);
+                bricks.add(brick);
+            }
+        }
+    }
+
+    private void removeDestroyedBricks() {
+        int nrOfRemainingBricks = 0;
+        for (int i = 0; i < bricks.size(); i++) {
+            Brick brick = bricks.get(i);
+            if (!brick.isDestroyed()) {
+                bricks.set(nrOfRemainingBricks++, brick);
+            }
+        }
+        bricks.subList(nrOfRemainingBricks, bricks.size()).clear();
+    }
+
+    @Override
+    public void onBrickDestroyed(Brick brick, Item item) {
+        telemetry.record(TelemetryEvent.BrickDestroyed, brick.isExplosive() ? 1 : 0);
+    }
+}
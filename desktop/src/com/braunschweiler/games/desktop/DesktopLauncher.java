@@ -4,9 +4,22 @@ import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import com.braunschweiler.games.Breakout;
 
+import java.io.File;
+
 public class DesktopLauncher {
+	/** Outside of the working directory, which is the assets folder when run from Gradle. */
+	private static final File TELEMETRY_DIRECTORY = new File(System.getProperty("user.home"), ".breakout" + File.separator + Breakout.TELEMETRY_DIRECTORY);
+	/** Logs draw calls and texture switches every second when passed on the command line. */
+	private static final String RENDER_STATS_ARGUMENT = "--render-stats";
+
 	public static void main (String[] arg) {
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
-		new LwjglApplication(new Breakout(), config);
+		Breakout breakout = new Breakout(TELEMETRY_DIRECTORY);
+		for (String argument : arg) {
+			if (RENDER_STATS_ARGUMENT.equals(argument)) {
+				breakout.setLogRenderStats(true);
+			}
+		}
+		new LwjglApplication(breakout, config);
 	}
 }
@@ -0,0 +1,159 @@
+package com.braunschweiler.games.desktop;
+
+import com.braunschweiler.games.Item;
+import com.braunschweiler.games.Paddle;
+import com.braunschweiler.games.TelemetryEvent;
+import com.braunschweiler.games.TelemetryReader;
+import com.braunschweiler.games.TelemetryWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line tool that aggregates telemetry logs into a summary. Events are streamed, so
+ * memory usage doesn't depend on the size of the logs.
+ *
+ * Usage: TelemetryAnalyzer <log directory or files>...
+ */
+public class TelemetryAnalyzer implements TelemetryReader.TelemetryListener {
+    /** Upper bounds (in milliseconds) of the slow frame histogram buckets. */
+    private static final int[] SLOW_FRAME_BUCKETS = {50, 100, 250, 500, 1000, Integer.MAX_VALUE};
+
+    private int nrOfFiles;
+    private int nrOfSessions;
+    private int nrOfSessionsWon;
+    private int nrOfSessionsLost;
+    private long sessionStartTime = -1;
+    private long totalSessionMillis;
+    private long longestSessionMillis;
+    private long nrOfBrickHits;
+    private long nrOfBricksDestroyed;
+    private long nrOfExplosions;
+    private long[] nrOfItemDrops = new long[Item.Type.values().length];
+    private long nrOfBallsLost;
+    private long[] nrOfPaddlesDestroyed = new long[Paddle.PaddlePosition.values().length];
+    private long nrOfSlowFrames;
+    private long slowestFrameMicros;
+    private long[] slowFrameHistogram = new long[SLOW_FRAME_BUCKETS.length];
+    private long nrOfDroppedEvents;
+
+    public static void main (String[] arg) {
+        if (arg.length == 0) {
+            System.err.println("Usage: TelemetryAnalyzer <log directory or files>...");
+            System.exit(1);
+        }
+        List<File> files = new ArrayList<File>();
+        for (String path : arg) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                for (File logFile : TelemetryWriter.listLogFiles(file)) {
+                    files.add(logFile);
+                }
+            } else {
+                files.add(file);
+            }
+        }
+
+        TelemetryAnalyzer analyzer = new TelemetryAnalyzer();
+        TelemetryReader reader = new TelemetryReader();
+        for (File file : files) {
+            try {
+                reader.read(file, analyzer);
+                analyzer.nrOfFiles++;
+            } catch (IOException e) {
+                System.err.println("Skipping " + file + ": " + e.getMessage());
+            }
+        }
+        analyzer.printSummary();
+    }
+
+    @Override
+    public void onEvent(TelemetryEvent event, long timeMillis, int value) {
+        switch (event) {
+            case SessionStarted:
+                sessionStartTime = timeMillis;
+                break;
+            case SessionEnded:
+                nrOfSessions++;
+                if (value == 1) {
+                    nrOfSessionsWon++;
+                } else {
+                    nrOfSessionsLost++;
+                }
+                if (sessionStartTime >= 0) {
+                    long sessionMillis = timeMillis - sessionStartTime;
+                    totalSessionMillis += sessionMillis;
+                    longestSessionMillis = Math.max(longestSessionMillis, sessionMillis);
+                }
+                sessionStartTime = -1;
+                break;
+            case BrickHit:
+                nrOfBrickHits++;
+                break;
+            case BrickDestroyed:
+                nrOfBricksDestroyed++;
+                if (value == 1) {
+                    nrOfExplosions++;
+                }
+                break;
+            case ItemDropped:
+                if (value >= 0 && value < nrOfItemDrops.length) {
+                    nrOfItemDrops[value]++;
+                }
+                break;
+            case BallLost:
+                nrOfBallsLost++;
+                break;
+            case PaddleDestroyed:
+                if (value >= 0 && value < nrOfPaddlesDestroyed.length) {
+                    nrOfPaddlesDestroyed[value]++;
+                }
+                break;
+            case SlowFrame:
+                nrOfSlowFrames++;
+                slowestFrameMicros = Math.max(slowestFrameMicros, value);
+                for (int i = 0; i < SLOW_FRAME_BUCKETS.length; i++) {
+                    if (value / 1000 < SLOW_FRAME_BUCKETS[i]) {
+                        slowFrameHistogram[i]++;
+                        break;
+                    }
+                }
+                break;
+            case EventsDropped:
+                nrOfDroppedEvents += value;
+                break;
+        }
+    }
+
+    private void printSummary() {
+        System.out.println("Files read:          " + nrOfFiles);
+        System.out.println("Sessions:            " + nrOfSessions + " (won " + nrOfSessionsWon + ", lost " + nrOfSessionsLost + ")");
+        if (nrOfSessions > 0) {
+            System.out.println("Avg session length:  " + (totalSessionMillis / nrOfSessions / 1000f) + " s");
+            System.out.println("Longest session:     " + (longestSessionMillis / 1000f) + " s");
+            System.out.println("Brick hits/session:  " + ((float) nrOfBrickHits / nrOfSessions));
+            System.out.println("Balls lost/session:  " + ((float) nrOfBallsLost / nrOfSessions));
+        }
+        System.out.println("Brick hits:          " + nrOfBrickHits);
+        System.out.println("Bricks destroyed:    " + nrOfBricksDestroyed + " (" + nrOfExplosions + " exploded)");
+        for (Item.Type type : Item.Type.values()) {
+            System.out.println("Item drops " + type + ": " + nrOfItemDrops[type.ordinal()]);
+        }
+        System.out.println("Balls lost:          " + nrOfBallsLost);
+        for (Paddle.PaddlePosition position : Paddle.PaddlePosition.values()) {
+            System.out.println("Paddles destroyed " + position + ": " + nrOfPaddlesDestroyed[position.ordinal()]);
+        }
+        System.out.println("Slow frames:         " + nrOfSlowFrames + " (slowest " + (slowestFrameMicros / 1000f) + " ms)");
+        int lowerBound = TelemetryWriter.SLOW_FRAME_THRESHOLD_MICROS / 1000;
+        for (int i = 0; i < SLOW_FRAME_BUCKETS.length; i++) {
+            String upperBound = SLOW_FRAME_BUCKETS[i] == Integer.MAX_VALUE ? "" : String.valueOf(SLOW_FRAME_BUCKETS[i]);
+            System.out.println("  " + lowerBound + "-" + upperBound + " ms: " + slowFrameHistogram[i]);
+            lowerBound = SLOW_FRAME_BUCKETS[i];
+        }
+        if (nrOfDroppedEvents > 0) {
+            System.out.println("Dropped events:      " + nrOfDroppedEvents);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.braunschweiler.games.desktop;
+
+import com.braunschweiler.games.Breakout;
+import com.braunschweiler.games.TelemetryEvent;
+import com.braunschweiler.games.TelemetryReader;
+import com.braunschweiler.games.TelemetryWriter;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Benchmarks what telemetry costs the game thread: recordFrameTime() every frame plus a burst of
+ * record() calls, as many as a busy Multiball frame records. Frames are paced instead of run back
+ * to back, so the writer thread drains the ring buffer about as often as it does in the game.
+ * Afterwards the log is read back to check that every event made it to disk.
+ *
+ * Doesn't need a GL context, run it with the desktop project's runtime classpath.
+ */
+public class TelemetryBenchmark implements TelemetryReader.TelemetryListener {
+    private static final int NR_OF_WARM_UP_FRAMES = 1000;
+    private static final int NR_OF_FRAMES = 2000;
+    private static final int EVENTS_PER_FRAME = 8;
+    private static final long FRAME_PACING_MILLIS = 1;
+    private static final float FRAME_TIME_SECONDS = 1f / 60;
+    private static final long FRAME_BUDGET_NANOS = 1000000000L / 60;
+
+    private long nrOfReadEvents;
+
+    public static void main (String[] arg) throws IOException, InterruptedException {
+        new TelemetryBenchmark().run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        File directory = new File(System.getProperty("java.io.tmpdir"), "breakout-benchmark-" + Breakout.TELEMETRY_DIRECTORY);
+        //Start with an empty log, the writer would continue the newest file otherwise
+        for (File file : TelemetryWriter.listLogFiles(directory)) {
+            file.delete();
+        }
+        TelemetryWriter telemetry = new TelemetryWriter(directory, Breakout.TELEMETRY_MAX_FILE_SIZE, Breakout.TELEMETRY_MAX_NR_OF_FILES);
+        telemetry.start();
+
+        long totalNanos = 0;
+        long maxNanos = 0;
+        //The warm up frames let the JIT compile record() before it is measured
+        for (int frame = -NR_OF_WARM_UP_FRAMES; frame < NR_OF_FRAMES; frame++) {
+            long start = System.nanoTime();
+            telemetry.recordFrameTime(FRAME_TIME_SECONDS);
+            for (int i = 0; i < EVENTS_PER_FRAME; i++) {
+                telemetry.record(TelemetryEvent.BrickHit, i);
+            }
+            long nanos = System.nanoTime() - start;
+            if (frame >= 0) {
+                totalNanos += nanos;
+                maxNanos = Math.max(maxNanos, nanos);
+            }
+            Thread.sleep(FRAME_PACING_MILLIS);
+        }
+        long nrOfDroppedEvents = telemetry.getNrOfDroppedEvents();
+        telemetry.close();
+
+        TelemetryReader reader = new TelemetryReader();
+        for (File file : TelemetryWriter.listLogFiles(directory)) {
+            reader.read(file, this);
+        }
+
+        long nrOfRecordedEvents = (long) (NR_OF_WARM_UP_FRAMES + NR_OF_FRAMES) * EVENTS_PER_FRAME;
+        System.out.println("Telemetry, frames: " + NR_OF_FRAMES + ", events per frame: " + EVENTS_PER_FRAME);
+        System.out.println("recordFrameTime() and record() calls: " + (totalNanos / NR_OF_FRAMES) + " ns/frame avg, " + (maxNanos / 1000) + " us max");
+        System.out.println("Per record(): ~" + (totalNanos / NR_OF_FRAMES / EVENTS_PER_FRAME) + " ns");
+        System.out.println("Frame budget at 60 fps: " + (FRAME_BUDGET_NANOS / 1000) + " us (" + (100f * totalNanos / NR_OF_FRAMES / FRAME_BUDGET_NANOS) + " % used on avg)");
+        System.out.println("Events written: " + nrOfReadEvents + "/" + nrOfRecordedEvents + ", dropped: " + nrOfDroppedEvents);
+    }
+
+    @Override
+    public void onEvent(TelemetryEvent event, long timeMillis, int value) {
+        if (event == TelemetryEvent.BrickHit) {
+            nrOfReadEvents++;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.braunschweiler.games.desktop;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.braunschweiler.games.Ball;
+import com.braunschweiler.games.Breakout;
+import com.braunschweiler.games.Brick;
+import com.braunschweiler.games.BrickDamageResolver;
+import com.braunschweiler.games.BrickGrid;
+import com.braunschweiler.games.Item;
+import com.braunschweiler.games.Paddle;
+import com.braunschweiler.games.TrajectoryPredictor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks the TrajectoryPredictor for a Multiball sized set of balls, in two phases:
+ *
+ * 1. Fresh predictions compared with brute-force step-simulation (moving the ball frame by frame,
+ *    the way Ball.updatePosition() does), both for speed and for where the balls land.
+ * 2. A game-like loop where balls move, bounce and destroy bricks, querying getTrajectory() for
+ *    every ball every frame. Reports how often the cache hits and what the recomputations cost,
+ *    compared to predicting every ball from scratch every frame.
+ *
+ * Doesn't need a GL context, run it with the desktop project's runtime classpath.
+ */
+public class TrajectoryBenchmark implements Brick.BrickListener, BrickDamageResolver.DestructionListener {
+    private static final int NR_OF_BALLS = 500;
+    private static final int NR_OF_ROUNDS = 200;
+    private static final int BALL_SIZE = 32;
+    private static final int MAX_SIMULATED_FRAMES = 100000;
+    /**
+     * The step simulation overshoots walls, bricks and the paddle line by up to one frame of
+     * movement, so its landing may drift by up to twice that per reflection. Landings further apart
+     * than this per reflection took a different path.
+     */
+    private static final float MATCHING_DEVIATION = 10;
+    /** The step simulation hit two bricks within one frame, resolving them one after the other. */
+    private static final int HIT_TWO_BRICKS = 1;
+    /**
+     * The step simulation reflected off a side wall in two consecutive frames, which keeps the ball
+     * stuck to the wall (Ball.updatePosition() doesn't push the ball back inside the screen).
+     */
+    private static final int STUCK_TO_WALL = 2;
+    /** A finer grid than the game's, so bricks keep being destroyed during the caching phase. */
+    private static final int CACHE_GRID_COLUMNS = 40;
+    private static final int CACHE_GRID_ROWS = 10;
+    private static final int NR_OF_FRAMES = 600;
+
+    private float paddleLineY;
+    private List<Brick> bricks;
+    private BrickGrid brickGrid;
+    private int gridColumns;
+    private int gridRows;
+    private BrickDamageResolver brickDamageResolver;
+
+    public static void main (String[] arg) {
+        TrajectoryBenchmark benchmark = new TrajectoryBenchmark();
+        benchmark.compareWithStepSimulation();
+        benchmark.measureCaching();
+    }
+
+    public TrajectoryBenchmark() {
+        paddleLineY = Paddle.PADDLE_Y + Paddle.PADDLE_HEIGHT;
+        bricks = new ArrayList<Brick>();
+    }
+
+    private void compareWithStepSimulation() {
+        createBricks(Breakout.NUMBER_OF_BRICKS_PER_ROW, Breakout.NUMBER_OF_BRICK_ROWS);
+        TrajectoryPredictor predictor = new TrajectoryPredictor(Breakout.VIEWPORT_WIDTH, Breakout.VIEWPORT_HEIGHT, paddleLineY, brickGrid);
+        TrajectoryPredictor.Trajectory trajectory = new TrajectoryPredictor.Trajectory();
+
+        float[] balls = new float[NR_OF_BALLS * 4];
+        for (int i = 0; i < NR_OF_BALLS; i++) {
+            balls[i * 4] = MathUtils.random(0, Breakout.VIEWPORT_WIDTH - BALL_SIZE);
+            balls[i * 4 + 1] = MathUtils.random(paddleLineY, Breakout.VIEWPORT_HEIGHT - Breakout.BRICK_AREA_HEIGHT - BALL_SIZE);
+            balls[i * 4 + 2] = MathUtils.randomSign() * MathUtils.random(1, 5);
+            balls[i * 4 + 3] = MathUtils.randomSign() * 5;
+        }
+        float[] simulatedLandings = new float[NR_OF_BALLS];
+        int[] simulationEvents = new int[NR_OF_BALLS];
+
+        //Warm up both code paths before measuring, so both are measured JIT compiled
+        for (int round = 0; round < NR_OF_ROUNDS; round++) {
+            runPredictions(predictor, trajectory, balls);
+            runSimulations(balls, simulatedLandings, simulationEvents);
+        }
+
+        long predictionNanos = 0;
+        long simulationNanos = 0;
+        for (int round = 0; round < NR_OF_ROUNDS; round++) {
+            long start = System.nanoTime();
+            runPredictions(predictor, trajectory, balls);
+            predictionNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            runSimulations(balls, simulatedLandings, simulationEvents);
+            simulationNanos += System.nanoTime() - start;
+        }
+
+        float maxDeviation = 0;
+        int nrOfComparedBalls = 0;
+        int nrOfMatchingBalls = 0;
+        int nrOfTwoBrickBalls = 0;
+        int nrOfStuckBalls = 0;
+        int nrOfOtherwiseDifferingBalls = 0;
+        for (int i = 0; i < NR_OF_BALLS; i++) {
+            predictor.predict(balls[i * 4], balls[i * 4 + 1], BALL_SIZE, balls[i * 4 + 2], balls[i * 4 + 3], trajectory);
+            if (!trajectory.landsOnPaddleLine() || Float.isNaN(simulatedLandings[i])) {
+                continue;
+            }
+            nrOfComparedBalls++;
+            int nrOfReflections = trajectory.getNrOfPoints() - 2;
+            float deviation = Math.abs(trajectory.getLandingX() - simulatedLandings[i]);
+            if (deviation < MATCHING_DEVIATION * (1 + nrOfReflections)) {
+                nrOfMatchingBalls++;
+            } else if ((simulationEvents[i] & HIT_TWO_BRICKS) != 0) {
+                nrOfTwoBrickBalls++;
+            } else if ((simulationEvents[i] & STUCK_TO_WALL) != 0) {
+                nrOfStuckBalls++;
+            } else {
+                nrOfOtherwiseDifferingBalls++;
+                maxDeviation = Math.max(maxDeviation, deviation);
+            }
+        }
+
+        long predictions = (long) NR_OF_BALLS * NR_OF_ROUNDS;
+        System.out.println("Fresh predictions, balls: " + NR_OF_BALLS + ", bricks: " + bricks.size());
+        System.out.println("Analytic prediction: " + (predictionNanos / predictions) + " ns/ball");
+        System.out.println("Step simulation:     " + (simulationNanos / predictions) + " ns/ball");
+        System.out.println("Landing within " + MATCHING_DEVIATION + " px per reflection: " + nrOfMatchingBalls + "/" + nrOfComparedBalls + " balls");
+        System.out.println("Differing, step simulation hit two bricks in one frame: " + nrOfTwoBrickBalls);
+        System.out.println("Differing, step simulation got stuck to a side wall: " + nrOfStuckBalls);
+        System.out.println("Differing otherwise: " + nrOfOtherwiseDifferingBalls + " (max deviation " + maxDeviation + " px)");
+    }
+
+    private void measureCaching() {
+        createBricks(CACHE_GRID_COLUMNS, CACHE_GRID_ROWS);
+        TrajectoryPredictor predictor = new TrajectoryPredictor(Breakout.VIEWPORT_WIDTH, Breakout.VIEWPORT_HEIGHT, paddleLineY, brickGrid);
+        TrajectoryPredictor.Trajectory trajectory = new TrajectoryPredictor.Trajectory();
+        //A paddle spanning the whole screen, so balls keep bouncing back up into the bricks
+        Paddle floor = new Paddle(Breakout.VIEWPORT_WIDTH, Paddle.PaddlePosition.Center, false, null);
+        floor.initialize();
+        floor.x = 0;
+        floor.width = Breakout.VIEWPORT_WIDTH;
+        List<Paddle> paddles = new ArrayList<Paddle>();
+        paddles.add(floor);
+        List<Ball> balls = new ArrayList<Ball>();
+        for (int i = 0; i < NR_OF_BALLS; i++) {
+            Ball ball = new Ball(Breakout.VIEWPORT_WIDTH, Breakout.VIEWPORT_HEIGHT);
+            resetBall(ball);
+            balls.add(ball);
+        }
+
+        long cachedNanos = 0;
+        long uncachedNanos = 0;
+        long nrOfDestroyedBricks = 0;
+        //The first half of the frames warms up the JIT and isn't measured
+        for (int frame = -NR_OF_FRAMES; frame < NR_OF_FRAMES; frame++) {
+            if (frame == 0) {
+                predictor.resetStatistics();
+                cachedNanos = 0;
+                uncachedNanos = 0;
+                nrOfDestroyedBricks = 0;
+            }
+
+            for (int i = 0; i < balls.size(); i++) {
+                Ball ball = balls.get(i);
+                ball.updatePosition(brickGrid, paddles);
+                if (ball.outOfBounds()) {
+                    resetBall(ball);
+                }
+            }
+            List<Brick> destroyedBricks = brickDamageResolver.resolve();
+            nrOfDestroyedBricks += destroyedBricks.size();
+            for (int i = 0; i < destroyedBricks.size(); i++) {
+                bricks.remove(destroyedBricks.get(i));
+            }
+            //The last few bricks are rarely hit, start over with a full grid well before they are gone
+            if (bricks.size() < CACHE_GRID_COLUMNS * CACHE_GRID_ROWS / 4) {
+                refillBricks();
+                predictor.clear();
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < balls.size(); i++) {
+                predictor.getTrajectory(balls.get(i));
+            }
+            cachedNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < balls.size(); i++) {
+                Ball ball = balls.get(i);
+                predictor.predict(ball.x, ball.y, ball.width, ball.getXVelocity(), ball.getYVelocity(), trajectory);
+            }
+            uncachedNanos += System.nanoTime() - start;
+        }
+
+        long queries = predictor.getNrOfQueries();
+        long recomputations = predictor.getNrOfRecomputations();
+        System.out.println();
+        System.out.println("Cached trajectories, balls: " + NR_OF_BALLS + ", frames: " + NR_OF_FRAMES + ", bricks destroyed: " + nrOfDestroyedBricks);
+        System.out.println("Cache hit rate: " + (100f * (queries - recomputations) / queries) + " % (" + ((float) recomputations / NR_OF_FRAMES) + " recomputations/frame)");
+        System.out.println("getTrajectory() for all balls: " + (cachedNanos / NR_OF_FRAMES / 1000) + " us/frame, ~" + (recomputations == 0 ? 0 : cachedNanos / recomputations) + " ns per recomputation");
+        System.out.println("predict() for all balls:       " + (uncachedNanos / NR_OF_FRAMES / 1000) + " us/frame");
+    }
+
+    private void resetBall(Ball ball) {
+        ball.initialize(Breakout.BRICK_AREA_HEIGHT);
+        ball.x = MathUtils.random(0, Breakout.VIEWPORT_WIDTH - BALL_SIZE);
+    }
+
+    private void createBricks(int nrOfColumns, int nrOfRows) {
+        gridColumns = nrOfColumns;
+        gridRows = nrOfRows;
+        brickGrid = new BrickGrid(0, Breakout.VIEWPORT_HEIGHT, Breakout.VIEWPORT_WIDTH / nrOfColumns, Breakout.BRICK_AREA_HEIGHT / nrOfRows, nrOfColumns, nrOfRows);
+        brickDamageResolver = new BrickDamageResolver(brickGrid, this);
+        refillBricks();
+    }
+
+    /** Fills every cell of the current grid with a new brick. */
+    private void refillBricks() {
+        bricks.clear();
+        brickGrid.clear();
+        brickDamageResolver.clear();
+        for (int row = 0; row < gridRows; row++) {
+            for (int column = 0; column < gridColumns; column++) {
+                //Reinforced as often as in the game, so paths reflect off the same brick repeatedly
+                int hitPoints = MathUtils.random(1, Breakout.CHANCE_OF_REINFORCED_BRICK) == 1 ? Breakout.REINFORCED_BRICK_HIT_POINTS : 1;
+                Brick brick = new Brick(null, hitPoints, false, this);
+                brickGrid.add(brick, column, row);
+                bricks.add(brick);
+            }
+        }
+    }
+
+    private static void runPredictions(TrajectoryPredictor predictor, TrajectoryPredictor.Trajectory trajectory, float[] balls) {
+        for (int i = 0; i < NR_OF_BALLS; i++) {
+            predictor.predict(balls[i * 4], balls[i * 4 + 1], BALL_SIZE, balls[i * 4 + 2], balls[i * 4 + 3], trajectory);
+        }
+    }
+
+    private void runSimulations(float[] balls, float[] landings, int[] simulationEvents) {
+        int[] hitPoints = new int[bricks.size()];
+        for (int i = 0; i < NR_OF_BALLS; i++) {
+            for (int j = 0; j < hitPoints.length; j++) {
+                hitPoints[j] = bricks.get(j).getHitPoints();
+            }
+            landings[i] = simulate(hitPoints, balls[i * 4], balls[i * 4 + 1], balls[i * 4 + 2], balls[i * 4 + 3], simulationEvents, i);
+        }
+    }
+
+    /**
+     * Moves the ball frame by frame, reflecting it off the walls and bricks the same way
+     * Ball.updatePosition() does, until it crosses the paddle line. Returns NaN if it never does.
+     * Records the events of the step simulation the analytic prediction doesn't model
+     * (HIT_TWO_BRICKS, STUCK_TO_WALL).
+     */
+    private float simulate(int[] hitPoints, float x, float y, float xVeloc, float yVeloc, int[] simulationEvents, int ballIndex) {
+        simulationEvents[ballIndex] = 0;
+        boolean reflectedOffSideWall = false;
+        for (int frame = 0; frame < MAX_SIMULATED_FRAMES; frame++) {
+            x += xVeloc;
+            y += yVeloc;
+            if (yVeloc < 0 && y <= paddleLineY) {
+                return x;
+            }
+            int nrOfBricksHit = 0;
+            if (x <= 0 || (x + BALL_SIZE) >= Breakout.VIEWPORT_WIDTH) {
+                xVeloc *= -1;
+                if (reflectedOffSideWall) {
+                    simulationEvents[ballIndex] |= STUCK_TO_WALL;
+                }
+                reflectedOffSideWall = true;
+            } else {
+                reflectedOffSideWall = false;
+            }
+            if ((y + BALL_SIZE) >= Breakout.VIEWPORT_HEIGHT) {
+                yVeloc *= -1;
+            }
+            for (int i = 0; i < hitPoints.length; i++) {
+                Brick brick = bricks.get(i);
+                if (hitPoints[i] <= 0 || !overlaps(x, y, brick)) {
+                    continue;
+                }
+                hitPoints[i]--;
+                nrOfBricksHit++;
+                float xIntrusion = xVeloc > 0 ? Math.abs(brick.x - (x + BALL_SIZE)) : Math.abs((brick.x + brick.width) - x);
+                float yIntrusion = yVeloc > 0 ? Math.abs((y + BALL_SIZE) - brick.y) : Math.abs((brick.y + brick.height) - y);
+                if (xIntrusion <= yIntrusion) {
+                    xVeloc *= -1;
+                }
+                if (yIntrusion <= xIntrusion) {
+                    yVeloc *= -1;
+                }
+            }
+            if (nrOfBricksHit >= 2) {
+                simulationEvents[ballIndex] |= HIT_TWO_BRICKS;
+            }
+        }
+        return Float.NaN;
+    }
+
+    private static boolean overlaps(float x, float y, Brick brick) {
+        return x < brick.x + brick.width && x + BALL_SIZE > brick.x && y < brick.y + brick.height && y + BALL_SIZE > brick.y;
+    }
+
+    @Override
+    public void onBallCollidedWithBrick(Brick brick) {
+        brickDamageResolver.addDamage(brick, BrickDamageResolver.BALL_DAMAGE);
+    }
+
+    @Override
+    public void onBrickDestroyed(Brick brick, Item item) {
+    }
+}